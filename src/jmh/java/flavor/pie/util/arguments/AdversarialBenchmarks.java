@@ -0,0 +1,126 @@
+package flavor.pie.util.arguments;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.api.command.args.CommandElement;
+import org.spongepowered.api.text.Text;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inputs a hostile or careless player could send: huge numbers, huge choice
+ * sets and large HOCON payloads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AdversarialBenchmarks {
+
+    private CommandElement bigInteger;
+    private CommandElement boundedInteger;
+    private BenchSupport.Input hugeNumber;
+
+    private CommandElement choices;
+    private CommandElement cachedChoices;
+    private BenchSupport.Input choicePrefix;
+    private BenchSupport.Input choiceMiss;
+
+    private CommandElement hocon;
+    private CommandElement cachedHocon;
+    private BenchSupport.Input largeHocon;
+
+    @Setup
+    public void setup() {
+        Text key = Text.of("value");
+
+        StringBuilder digits = new StringBuilder(100000);
+        for (int i = 0; i < 100000; i++) {
+            digits.append((char) ('0' + (i * 7 + 1) % 10));
+        }
+        this.bigInteger = MoreArguments.bigInteger(key);
+        this.boundedInteger = MoreArguments.boundedInteger(key, NumberBounds.builder().build());
+        this.hugeNumber = BenchSupport.input(digits.toString());
+
+        Map<String, Object> many = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            many.put("choice" + i, i);
+        }
+        this.choices = MoreArguments.choices(key, src -> many);
+        this.cachedChoices = MoreArguments.choices(key, CachedChoices.builder(src -> many).shared().build());
+        this.choicePrefix = BenchSupport.input("choice12");
+        this.choiceMiss = BenchSupport.input("choice10000");
+
+        StringBuilder hocon = new StringBuilder("{");
+        for (int i = 0; hocon.length() < 10000; i++) {
+            hocon.append(" key").append(i).append(" = { name = \"value").append(i).append("\", list = [1, 2, 3] },");
+        }
+        hocon.append(" }");
+        this.hocon = MoreArguments.hoconNode(key);
+        this.cachedHocon = MoreArguments.hoconNode(key, 16384, 64);
+        this.largeHocon = BenchSupport.input(hocon.toString());
+    }
+
+    @Benchmark
+    public Object hugeBigInteger() {
+        return BenchSupport.parse(this.bigInteger, this.hugeNumber);
+    }
+
+    @Benchmark
+    public Object hugeBoundedInteger() {
+        return BenchSupport.parse(this.boundedInteger, this.hugeNumber);
+    }
+
+    @Benchmark
+    public List<String> manyChoicesComplete() {
+        return BenchSupport.complete(this.choices, this.choicePrefix);
+    }
+
+    @Benchmark
+    public List<String> manyCachedChoicesComplete() {
+        return BenchSupport.complete(this.cachedChoices, this.choicePrefix);
+    }
+
+    @Benchmark
+    public Text manyChoicesUsage() {
+        return this.choices.getUsage(BenchSupport.SOURCE);
+    }
+
+    @Benchmark
+    public Text manyCachedChoicesUsage() {
+        return this.cachedChoices.getUsage(BenchSupport.SOURCE);
+    }
+
+    @Benchmark
+    public Object manyChoicesMiss() {
+        return BenchSupport.parse(this.choices, this.choiceMiss);
+    }
+
+    @Benchmark
+    public Object manyCachedChoicesMiss() {
+        return BenchSupport.parse(this.cachedChoices, this.choiceMiss);
+    }
+
+    @Benchmark
+    public Object largeHocon() {
+        return BenchSupport.parse(this.hocon, this.largeHocon);
+    }
+
+    @Benchmark
+    public Object largeCachedHocon() {
+        return BenchSupport.parse(this.cachedHocon, this.largeHocon);
+    }
+}
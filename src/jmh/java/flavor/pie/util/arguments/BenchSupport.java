@@ -0,0 +1,108 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.ArgumentParseException;
+import org.spongepowered.api.command.args.CommandArgs;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.args.CommandElement;
+import org.spongepowered.api.command.args.parsing.InputTokenizer;
+import org.spongepowered.api.command.args.parsing.SingleArg;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Runs elements outside a server: a stand-in {@link CommandSource} and
+ * {@link CommandArgs} built from Sponge's own tokenizer.
+ */
+final class BenchSupport {
+
+    static final CommandSource SOURCE = (CommandSource) Proxy.newProxyInstance(CommandSource.class.getClassLoader(),
+            new Class<?>[] {CommandSource.class}, BenchSupport::invoke);
+
+    private static final InputTokenizer TOKENIZER = InputTokenizer.quotedStrings(false);
+
+    private BenchSupport() {}
+
+    private static Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getName":
+            case "getIdentifier":
+                return "bench";
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "BenchCommandSource";
+        }
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return true;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == Optional.class) {
+            return Optional.empty();
+        } else if (type == List.class || type == Collection.class) {
+            return ImmutableList.of();
+        } else if (type == Set.class) {
+            return ImmutableSet.of();
+        } else if (type == Map.class) {
+            return ImmutableMap.of();
+        }
+        return null;
+    }
+
+    /**
+     * Tokenizes once; {@link #args(Input)} then only copies the token list.
+     */
+    static Input input(String raw) {
+        try {
+            return new Input(raw, TOKENIZER.tokenize(raw, true));
+        } catch (ArgumentParseException ex) {
+            throw new IllegalArgumentException(raw, ex);
+        }
+    }
+
+    static CommandArgs args(Input input) {
+        return new CommandArgs(input.raw, input.tokens);
+    }
+
+    /**
+     * @return the parsed context, or the exception if parsing failed
+     */
+    static Object parse(CommandElement element, Input input) {
+        CommandContext context = new CommandContext();
+        try {
+            element.parse(SOURCE, args(input), context);
+            return context;
+        } catch (ArgumentParseException ex) {
+            return ex;
+        }
+    }
+
+    static List<String> complete(CommandElement element, Input input) {
+        return element.complete(SOURCE, args(input), new CommandContext());
+    }
+
+    static final class Input {
+
+        final String raw;
+        final List<SingleArg> tokens;
+
+        Input(String raw, List<SingleArg> tokens) {
+            this.raw = raw;
+            this.tokens = tokens;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.collect.ImmutableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.api.command.args.CommandElement;
+import org.spongepowered.api.text.Text;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * parse, complete and getUsage for every element on typical input, plus the
+ * parse failure path on typical bad input.
+ *
+ * <p>{@code text} and {@code resourcePack} are left out: they need a running
+ * Sponge implementation behind {@code TextSerializers} and
+ * {@code ResourcePacks}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElementBenchmarks {
+
+    private static final Map<String, Case> CASES = new LinkedHashMap<>();
+
+    static {
+        Text key = Text.of("value");
+        Map<String, Object> warps = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            warps.put("warp" + i, i);
+        }
+        add("uuid", MoreArguments.uuid(key), "3f2a6e0c-1c5b-4d8e-9a7f-0b1c2d3e4f50", "not-a-uuid", "");
+        add("duration", MoreArguments.duration(key), "1d2h30m", "1d2x", "15");
+        add("dateTime", MoreArguments.dateTime(key), "2017-01-31T08:00:00", "31/01/2017", "2017");
+        add("dateTimeTimeOnly", MoreArguments.dateTime(key), "08:00", "8 o'clock", "");
+        add("dateTimeDateOnly", MoreArguments.dateTime(key), "2017-01-31", "2017-02-30", "");
+        add("dateTimeRelative", MoreArguments.dateTime(key), "now+1h30m", "now+1x", "no");
+        add("bigInteger", MoreArguments.bigInteger(key), "123456789012345678901234567890", "12a", "");
+        add("bigDecimal", MoreArguments.bigDecimal(key), "12345.6789", "1.2.3", "");
+        add("boundedInteger", MoreArguments.boundedInteger(key, NumberBounds.builder().range(0, 1000000000).suffixes(true).build()),
+                "1500000", "1500000000000", "15");
+        add("boundedDecimal", MoreArguments.boundedDecimal(key, NumberBounds.builder().maxScale(2).suffixes(true).build()),
+                "1.5k", "1.2345", "1");
+        // ip() only stays off the resolver for literals, which is all we feed it
+        add("ip", MoreArguments.ip(key), "192.168.1.10", "::zz", "");
+        add("ipLiteral", MoreArguments.ipLiteral(key), "2001:db8::1", "example.com", "");
+        add("ipRange", MoreArguments.ipRange(key), "10.0.0.0/8", "10.0.0.0/33", "");
+        add("url", MoreArguments.url(key), "https://example.com/pack.zip?x=1", "https://exa%zz", "");
+        add("uri", MoreArguments.uri(key), "https://example.com/pack.zip?x=1", "https://exa%zz", "");
+        add("uriRules", MoreArguments.uri(key, UriRules.builder().schemes("https").allowHosts("example.com").build()),
+                "https://cdn.example.com/pack.zip", "https://example.org/pack.zip", "ht");
+        add("hoconNode", MoreArguments.hoconNode(key), "{ a = 1, b = [1, 2, 3], c { d = \"e\" } }", "{ a = ", "");
+        add("choices", MoreArguments.choices(key, src -> warps), "warp50", "nope", "warp5");
+        add("choicesCached", MoreArguments.choices(key, CachedChoices.builder(src -> warps).shared().build()), "warp50", "nope", "warp5");
+        add("inventorySlot", MoreArguments.inventorySlot(key), "slot.armor.chest", "slot.armor.nope", "slot.ho");
+    }
+
+    @Param({"uuid", "duration", "dateTime", "dateTimeTimeOnly", "dateTimeDateOnly", "dateTimeRelative", "bigInteger",
+            "bigDecimal", "boundedInteger", "boundedDecimal", "ip", "ipLiteral", "ipRange", "url", "uri", "uriRules", "hoconNode",
+            "choices", "choicesCached", "inventorySlot"})
+    public String element;
+
+    private Case current;
+
+    private static void add(String name, CommandElement element, String valid, String invalid, String prefix) {
+        CASES.put(name, new Case(element, BenchSupport.input(valid), BenchSupport.input(invalid), BenchSupport.input(prefix)));
+    }
+
+    @Setup
+    public void setup() {
+        this.current = CASES.get(this.element);
+        if (this.current == null) {
+            throw new IllegalArgumentException("Unknown element " + this.element + ", expected one of " + CASES.keySet());
+        }
+    }
+
+    @Benchmark
+    public Object parse() {
+        return BenchSupport.parse(this.current.element, this.current.valid);
+    }
+
+    @Benchmark
+    public Object parseFailure() {
+        return BenchSupport.parse(this.current.element, this.current.invalid);
+    }
+
+    @Benchmark
+    public List<String> complete() {
+        return BenchSupport.complete(this.current.element, this.current.prefix);
+    }
+
+    @Benchmark
+    public Text usage() {
+        return this.current.element.getUsage(BenchSupport.SOURCE);
+    }
+
+    static Map<String, Case> cases() {
+        return ImmutableMap.copyOf(CASES);
+    }
+
+    static final class Case {
+
+        final CommandElement element;
+        final BenchSupport.Input valid;
+        final BenchSupport.Input invalid;
+        final BenchSupport.Input prefix;
+
+        Case(CommandElement element, BenchSupport.Input valid, BenchSupport.Input invalid, BenchSupport.Input prefix) {
+            this.element = element;
+            this.valid = valid;
+            this.invalid = invalid;
+            this.prefix = prefix;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.CommandArgs;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.args.CommandElement;
+import org.spongepowered.api.command.args.parsing.SingleArg;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Runs the completion of elements wrapped by
+ * {@link MoreArguments#asyncCompletion} off the calling thread, waiting at
+ * most a deadline for it. Past the deadline, the suggestions last computed
+ * for the same source and input are returned instead. Each source has at
+ * most one completion per element in flight: repeating the same input joins
+ * it, and new input cancels it.
+ */
+public final class AsyncCompleter {
+
+    private final Executor executor;
+    private final long deadlineNanos;
+    private final Cache<Key, List<String>> recent;
+    private final ConcurrentMap<Key, Request> inFlight = new ConcurrentHashMap<>();
+
+    private AsyncCompleter(Builder builder) {
+        this.executor = builder.executor != null ? builder.executor : LazyExecutor.COMPLETION;
+        this.deadlineNanos = builder.deadlineUnit.toNanos(builder.deadline);
+        this.recent = CacheBuilder.newBuilder()
+                .maximumSize(builder.maximumSize)
+                .expireAfterWrite(builder.ttl, builder.ttlUnit)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    List<String> complete(CommandElement element, CommandSource src, CommandArgs args) {
+        // The element gets its own copy of the remaining arguments, since
+        // the caller's copy moves on as soon as this returns
+        Object state = args.getState();
+        String raw = args.getRaw();
+        List<String> values = new ArrayList<>();
+        List<Integer> starts = new ArrayList<>();
+        for (Optional<String> next = args.nextIfPresent(); next.isPresent(); next = args.nextIfPresent()) {
+            values.add(next.get());
+            starts.add(args.getRawPosition());
+        }
+        args.setState(state);
+        // Quoted or escaped tokens are longer in the raw input than their
+        // values, so each one ends where the next begins, less the spaces
+        List<SingleArg> tokens = new ArrayList<>(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            int start = starts.get(i);
+            int end = i + 1 < values.size() ? starts.get(i + 1) : raw.length();
+            while (end > start && Character.isWhitespace(raw.charAt(end - 1))) {
+                end--;
+            }
+            tokens.add(new SingleArg(values.get(i), start, end));
+        }
+        String prefix = starts.isEmpty() ? "" : raw.substring(starts.get(0));
+        String lastToken = tokens.isEmpty() ? "" : tokens.get(tokens.size() - 1).getValue();
+
+        String source = src.getIdentifier();
+        Key key = new Key(source, element, prefix);
+        Key owner = new Key(source, element, null);
+        Request created = new Request(key, () -> element.complete(src, new CommandArgs(raw, tokens), new CommandContext()));
+        Request stale = this.inFlight.get(owner);
+        Request request;
+        if (stale != null && stale.key.equals(key)) {
+            request = stale;
+        } else {
+            this.inFlight.put(owner, created);
+            if (stale != null) {
+                stale.cancel(true);
+            }
+            try {
+                this.executor.execute(created);
+            } catch (RejectedExecutionException ex) {
+                this.inFlight.remove(owner, created);
+                return cached(key, prefix, lastToken);
+            }
+            request = created;
+        }
+        try {
+            return request.get(this.deadlineNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException | ExecutionException | CancellationException ex) {
+            // fall through to the cached suggestions
+        }
+        return cached(key, prefix, lastToken);
+    }
+
+    private List<String> cached(Key key, String prefix, String lastToken) {
+        List<String> cached = this.recent.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        // Usually the player has only typed more of the last argument since
+        // the last suggestions, so narrow those down
+        if (prefix.endsWith(lastToken)) {
+            for (int cut = 1; cut <= lastToken.length(); cut++) {
+                cached = this.recent.getIfPresent(new Key(key.source, key.element, prefix.substring(0, prefix.length() - cut)));
+                if (cached != null) {
+                    ImmutableList.Builder<String> builder = ImmutableList.builder();
+                    for (String suggestion : cached) {
+                        if (suggestion.startsWith(lastToken)) {
+                            builder.add(suggestion);
+                        }
+                    }
+                    return builder.build();
+                }
+            }
+        }
+        return ImmutableList.of();
+    }
+
+    public void invalidateAll() {
+        this.recent.invalidateAll();
+    }
+
+    private final class Request extends FutureTask<List<String>> {
+
+        final Key key;
+
+        Request(Key key, Callable<List<String>> completion) {
+            super(completion);
+            this.key = key;
+        }
+
+        @Override
+        protected void done() {
+            inFlight.remove(new Key(this.key.source, this.key.element, null), this);
+            if (isCancelled()) {
+                return;
+            }
+            try {
+                recent.put(this.key, ImmutableList.copyOf(get()));
+            } catch (InterruptedException | ExecutionException ex) {
+                // nothing worth remembering
+            }
+        }
+    }
+
+    private static final class Key {
+
+        final String source;
+        final CommandElement element;
+        @Nullable final String prefix;
+
+        Key(String source, CommandElement element, @Nullable String prefix) {
+            this.source = source;
+            this.element = element;
+            this.prefix = prefix;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return this.element == other.element && this.source.equals(other.source) && Objects.equals(this.prefix, other.prefix);
+        }
+
+        @Override
+        public int hashCode() {
+            return (this.source.hashCode() * 31 + System.identityHashCode(this.element)) * 31 + Objects.hashCode(this.prefix);
+        }
+    }
+
+    public static final class Builder {
+
+        private long deadline = 20;
+        private TimeUnit deadlineUnit = TimeUnit.MILLISECONDS;
+        private long maximumSize = 1024;
+        private long ttl = 30;
+        private TimeUnit ttlUnit = TimeUnit.SECONDS;
+        private Executor executor;
+
+        private Builder() {}
+
+        /**
+         * Sets how long the calling thread waits for fresh suggestions. Zero
+         * never waits, so completion only ever serves cached suggestions
+         * while refreshing them in the background.
+         */
+        public Builder deadline(long deadline, TimeUnit unit) {
+            checkArgument(deadline >= 0, "deadline must not be negative");
+            this.deadline = deadline;
+            this.deadlineUnit = checkNotNull(unit, "unit");
+            return this;
+        }
+
+        /**
+         * Sets how many source and input pairs to remember suggestions for.
+         */
+        public Builder maximumSize(long maximumSize) {
+            checkArgument(maximumSize > 0, "maximumSize must be positive");
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public Builder expireAfter(long ttl, TimeUnit unit) {
+            checkArgument(ttl > 0, "ttl must be positive");
+            this.ttl = ttl;
+            this.ttlUnit = checkNotNull(unit, "unit");
+            return this;
+        }
+
+        public Builder executor(Executor executor) {
+            this.executor = checkNotNull(executor, "executor");
+            return this;
+        }
+
+        public AsyncCompleter build() {
+            return new AsyncCompleter(this);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.collect.ImmutableList;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.ArgumentParseException;
+import org.spongepowered.api.command.args.CommandArgs;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.args.CommandElement;
+import org.spongepowered.api.command.args.parsing.InputTokenizer;
+import org.spongepowered.api.text.Text;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Parses many raw argument strings against one element, such as when
+ * replaying a command script, and hands back the results in input order.
+ * Elements that are pure functions of their input are parsed in parallel;
+ * ones that may touch game state, like {@link MoreArguments#resourcePack},
+ * {@link MoreArguments#profile} or the {@code OrSource} variants, and any
+ * element from outside this library, are all run on the main thread
+ * executor.
+ */
+public final class BatchParser {
+
+    private static final Supplier<Text> TOO_MANY_ARGUMENTS = ParseFailure.message("Too many arguments!");
+
+    private final CommandElement element;
+    private final InputTokenizer tokenizer;
+    private final Executor executor;
+    @Nullable private final Executor mainThreadExecutor;
+    private final int batchSize;
+    private final boolean requiresMainThread;
+
+    private BatchParser(Builder builder) {
+        this.element = builder.element;
+        this.tokenizer = builder.tokenizer;
+        this.executor = builder.executor;
+        this.mainThreadExecutor = builder.mainThreadExecutor;
+        this.batchSize = builder.batchSize;
+        this.requiresMainThread = ThreadAffinity.requiresMainThread(builder.element);
+    }
+
+    public static Builder builder(CommandElement element) {
+        return new Builder(element);
+    }
+
+    /**
+     * @return whether this parser's element has to run on the main thread,
+     *         in which case batches are run one by one on the main thread
+     */
+    public boolean requiresMainThread() {
+        return this.requiresMainThread;
+    }
+
+    public CompletableFuture<List<Result>> parse(CommandSource source, Stream<String> inputs) {
+        return parse(source, inputs.collect(Collectors.toList()));
+    }
+
+    public CompletableFuture<List<Result>> parse(CommandSource source, List<String> inputs) {
+        checkNotNull(source, "source");
+        String[] lines = inputs.toArray(new String[0]);
+        Result[] results = new Result[lines.length];
+        Executor executor = this.executor;
+        if (this.requiresMainThread) {
+            checkState(this.mainThreadExecutor != null, "Element needs the main thread, but no main thread executor was given");
+            // Still chunked, so one large batch doesn't hold up a whole tick
+            executor = this.mainThreadExecutor;
+        }
+        CompletableFuture<?>[] batches = new CompletableFuture<?>[(lines.length + this.batchSize - 1) / this.batchSize];
+        for (int i = 0; i < batches.length; i++) {
+            int start = i * this.batchSize;
+            int end = Math.min(start + this.batchSize, lines.length);
+            batches[i] = CompletableFuture.runAsync(() -> parseRange(source, lines, results, start, end), executor);
+        }
+        return CompletableFuture.allOf(batches).thenApply(v -> ImmutableList.copyOf(results));
+    }
+
+    private void parseRange(CommandSource source, String[] lines, Result[] results, int start, int end) {
+        for (int i = start; i < end; i++) {
+            results[i] = parse(source, lines[i], i);
+        }
+    }
+
+    private Result parse(CommandSource source, String input, int index) {
+        try {
+            CommandArgs args = new CommandArgs(input, this.tokenizer.tokenize(input, true));
+            CommandContext context = new CommandContext();
+            this.element.parse(source, args, context);
+            if (args.hasNext()) {
+                args.next();
+                throw ParseFailure.of(args, TOO_MANY_ARGUMENTS);
+            }
+            return new Result(input, index, context, null);
+        } catch (ArgumentParseException ex) {
+            return new Result(input, index, null, ex);
+        } catch (RuntimeException ex) {
+            // Kept to its own line, rather than failing the rest of the chunk
+            return new Result(input, index, null, new ArgumentParseException(Text.of("Error while parsing: " + ex), ex, input, 0));
+        }
+    }
+
+    public static final class Result {
+
+        private final String input;
+        private final int index;
+        @Nullable private final CommandContext context;
+        @Nullable private final ArgumentParseException error;
+
+        Result(String input, int index, @Nullable CommandContext context, @Nullable ArgumentParseException error) {
+            this.input = input;
+            this.index = index;
+            this.context = context;
+            this.error = error;
+        }
+
+        public String getInput() {
+            return this.input;
+        }
+
+        /**
+         * @return the position of the input in the batch
+         */
+        public int getIndex() {
+            return this.index;
+        }
+
+        public boolean isSuccess() {
+            return this.error == null;
+        }
+
+        public Optional<CommandContext> getContext() {
+            return Optional.ofNullable(this.context);
+        }
+
+        /**
+         * @return why the input failed to parse; an element that threw
+         *         anything else has that exception as the cause
+         */
+        public Optional<ArgumentParseException> getError() {
+            return Optional.ofNullable(this.error);
+        }
+    }
+
+    public static final class Builder {
+
+        private final CommandElement element;
+        private InputTokenizer tokenizer = InputTokenizer.quotedStrings(false);
+        private Executor executor = ForkJoinPool.commonPool();
+        @Nullable private Executor mainThreadExecutor;
+        private int batchSize = 64;
+
+        private Builder(CommandElement element) {
+            this.element = checkNotNull(element, "element");
+        }
+
+        public Builder tokenizer(InputTokenizer tokenizer) {
+            this.tokenizer = checkNotNull(tokenizer, "tokenizer");
+            return this;
+        }
+
+        /**
+         * Sets the executor pure elements are parsed on. Defaults to the
+         * common fork-join pool.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = checkNotNull(executor, "executor");
+            return this;
+        }
+
+        /**
+         * Sets the executor elements needing the main thread are parsed on,
+         * such as a Sponge synchronous scheduler executor.
+         */
+        public Builder mainThreadExecutor(Executor mainThreadExecutor) {
+            this.mainThreadExecutor = checkNotNull(mainThreadExecutor, "mainThreadExecutor");
+            return this;
+        }
+
+        /**
+         * Sets how many inputs each parallel task parses.
+         */
+        public Builder batchSize(int batchSize) {
+            checkArgument(batchSize > 0, "batchSize must be positive");
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public BatchParser build() {
+            return new BatchParser(this);
+        }
+    }
+}
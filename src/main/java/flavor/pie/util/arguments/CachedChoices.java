@@ -0,0 +1,161 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.spongepowered.api.command.CommandSource;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Wraps a choice supplier so that it is called at most once per source per
+ * snapshot lifetime, instead of once for every parse, completion and usage
+ * render.
+ */
+public final class CachedChoices {
+
+    private static final Object SHARED = new Object();
+    private static final int MAXIMUM_INDEXES = 256;
+
+    private final Function<CommandSource, ? extends Map<String, ?>> supplier;
+    @Nullable private final ToLongFunction<CommandSource> version;
+    private final boolean shared;
+    private final int maximumCompletions;
+    private final Cache<Object, ChoiceSnapshot> snapshots;
+    // Outlives the snapshots, so that each index can be derived from the last
+    @Nullable private final Cache<Object, FuzzyIndex> indexes;
+
+    private CachedChoices(Builder builder) {
+        this.supplier = builder.supplier;
+        this.version = builder.version;
+        this.shared = builder.shared;
+        this.maximumCompletions = builder.maximumCompletions;
+        this.snapshots = CacheBuilder.newBuilder()
+                .weakKeys()
+                .expireAfterWrite(builder.ttl, builder.ttlUnit)
+                .build();
+        this.indexes = !builder.fuzzy ? null : CacheBuilder.newBuilder()
+                .weakKeys()
+                .maximumSize(MAXIMUM_INDEXES)
+                .expireAfterAccess(5, TimeUnit.MINUTES)
+                .<Object, FuzzyIndex>build();
+    }
+
+    public static Builder builder(Function<CommandSource, ? extends Map<String, ?>> supplier) {
+        return new Builder(supplier);
+    }
+
+    public ChoiceSnapshot get(CommandSource source) {
+        Object key = this.shared ? SHARED : source;
+        if (this.version != null) {
+            long current = this.version.applyAsLong(source);
+            ChoiceSnapshot snapshot = this.snapshots.getIfPresent(key);
+            if (snapshot != null && snapshot.getVersion() != current) {
+                this.snapshots.asMap().remove(key, snapshot);
+            }
+        }
+        try {
+            return this.snapshots.get(key, () -> load(key, source));
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+        }
+    }
+
+    public int getMaximumCompletions() {
+        return this.maximumCompletions;
+    }
+
+    public void invalidate(CommandSource source) {
+        this.snapshots.invalidate(this.shared ? SHARED : source);
+    }
+
+    public void invalidateAll() {
+        this.snapshots.invalidateAll();
+    }
+
+    private ChoiceSnapshot load(Object key, CommandSource source) {
+        long version = this.version != null ? this.version.applyAsLong(source) : 0;
+        if (this.indexes == null) {
+            return ChoiceSnapshot.of(this.supplier.apply(source), version);
+        }
+        ChoiceSnapshot snapshot = ChoiceSnapshot.indexed(this.supplier.apply(source), version, this.indexes.getIfPresent(key));
+        this.indexes.put(key, snapshot.index);
+        return snapshot;
+    }
+
+    public static final class Builder {
+
+        private final Function<CommandSource, ? extends Map<String, ?>> supplier;
+        @Nullable private ToLongFunction<CommandSource> version;
+        private boolean shared;
+        private boolean fuzzy;
+        private int maximumCompletions = 100;
+        private long ttl = 5;
+        private TimeUnit ttlUnit = TimeUnit.SECONDS;
+
+        private Builder(Function<CommandSource, ? extends Map<String, ?>> supplier) {
+            this.supplier = checkNotNull(supplier, "supplier");
+        }
+
+        /**
+         * Rebuilds a snapshot as soon as the version reported for its source
+         * changes, even before it expires.
+         */
+        public Builder version(ToLongFunction<CommandSource> version) {
+            this.version = checkNotNull(version, "version");
+            return this;
+        }
+
+        /**
+         * Keeps a single snapshot for every source. Only use this if the
+         * supplier ignores its argument.
+         */
+        public Builder shared() {
+            this.shared = true;
+            return this;
+        }
+
+        /**
+         * Indexes every snapshot by trigrams, so that choices elements accept
+         * keys typed in the wrong case, complete mistyped prefixes, and
+         * suggest the closest keys when nothing matches. Each index is
+         * updated from the last one for the same source rather than rebuilt,
+         * if that one was used in the last five minutes; indexes are kept
+         * for at most 256 sources.
+         */
+        public Builder fuzzy() {
+            this.fuzzy = true;
+            return this;
+        }
+
+        public Builder expireAfter(long ttl, TimeUnit unit) {
+            checkArgument(ttl > 0, "ttl must be positive");
+            this.ttl = ttl;
+            this.ttlUnit = checkNotNull(unit, "unit");
+            return this;
+        }
+
+        public Builder maximumCompletions(int maximumCompletions) {
+            checkArgument(maximumCompletions > 0, "maximumCompletions must be positive");
+            this.maximumCompletions = maximumCompletions;
+            return this;
+        }
+
+        public CachedChoices build() {
+            return new CachedChoices(this);
+        }
+    }
+}
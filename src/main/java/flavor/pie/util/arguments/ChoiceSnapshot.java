@@ -0,0 +1,181 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.collect.ImmutableList;
+import org.spongepowered.api.command.CommandMessageFormatting;
+import org.spongepowered.api.text.Text;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable copy of a set of choices, with its keys sorted so that lookups
+ * are binary searches and completions are range scans. Snapshots made for
+ * {@link CachedChoices.Builder#fuzzy} choices also carry a trigram index
+ * for {@link #closest}.
+ */
+public final class ChoiceSnapshot {
+
+    private final String[] keys;
+    private final Object[] values;
+    private final long version;
+    @Nullable final FuzzyIndex index;
+    @Nullable private volatile Text usage;
+
+    private ChoiceSnapshot(String[] keys, Object[] values, long version, @Nullable FuzzyIndex index) {
+        this.keys = keys;
+        this.values = values;
+        this.version = version;
+        this.index = index;
+    }
+
+    public static ChoiceSnapshot of(Map<String, ?> choices) {
+        return of(choices, 0);
+    }
+
+    public static ChoiceSnapshot of(Map<String, ?> choices, long version) {
+        return of(choices, version, false, null);
+    }
+
+    /**
+     * Like {@link #of(Map, long)}, with a fuzzy index derived from
+     * {@code previous} if there is one.
+     */
+    static ChoiceSnapshot indexed(Map<String, ?> choices, long version, @Nullable FuzzyIndex previous) {
+        return of(choices, version, true, previous);
+    }
+
+    private static ChoiceSnapshot of(Map<String, ?> choices, long version, boolean indexed, @Nullable FuzzyIndex previous) {
+        String[] keys = new String[choices.size()];
+        int size = 0;
+        for (Map.Entry<String, ?> entry : choices.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                keys[size++] = entry.getKey();
+            }
+        }
+        keys = Arrays.copyOf(keys, size);
+        Arrays.sort(keys);
+        Object[] values = new Object[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = choices.get(keys[i]);
+        }
+        FuzzyIndex index = !indexed ? null : previous != null ? previous.update(keys) : FuzzyIndex.build(keys);
+        return new ChoiceSnapshot(keys, values, version, index);
+    }
+
+    public long getVersion() {
+        return this.version;
+    }
+
+    public int size() {
+        return this.keys.length;
+    }
+
+    @Nullable
+    public Object get(String key) {
+        int index = Arrays.binarySearch(this.keys, key);
+        return index < 0 ? null : this.values[index];
+    }
+
+    /**
+     * Like {@link #get}, but for indexed snapshots also takes a key that only
+     * differs in case, as long as no other key does too.
+     */
+    @Nullable
+    Object lookup(String key) {
+        Object value = get(key);
+        if (value == null && this.index != null) {
+            String match = this.index.foldedMatch(key);
+            if (match != null) {
+                value = get(match);
+            }
+        }
+        return value;
+    }
+
+    public boolean isIndexed() {
+        return this.index != null;
+    }
+
+    public List<String> getKeys() {
+        return ImmutableList.copyOf(this.keys);
+    }
+
+    /**
+     * @return up to {@code limit} keys starting with {@code prefix}, in order
+     */
+    public List<String> complete(String prefix, int limit) {
+        int from = lowerBound(prefix);
+        ImmutableList.Builder<String> builder = ImmutableList.builder();
+        for (int i = from; i < this.keys.length && i - from < limit && this.keys[i].startsWith(prefix); i++) {
+            builder.add(this.keys[i]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return up to {@code limit} keys that sort next to {@code input}, for
+     *         error messages that should not list every choice
+     */
+    public List<String> nearest(String input, int limit) {
+        int from = Math.max(0, Math.min(lowerBound(input) - limit / 2, this.keys.length - limit));
+        int to = Math.min(this.keys.length, from + limit);
+        return ImmutableList.copyOf(Arrays.asList(this.keys).subList(from, to));
+    }
+
+    /**
+     * @return up to {@code limit} keys most like {@code input} ignoring case,
+     *         best first, or the {@link #nearest} ones if this snapshot is
+     *         not indexed
+     */
+    public List<String> closest(String input, int limit) {
+        return this.index != null ? this.index.closest(input, limit) : nearest(input, limit);
+    }
+
+    /**
+     * @return the keys starting with {@code prefix}, followed for indexed
+     *         snapshots by those it looks like a mistyped start of
+     */
+    List<String> suggest(String prefix, int limit) {
+        List<String> completions = complete(prefix, limit);
+        if (this.index == null || prefix.isEmpty() || completions.size() == limit) {
+            return completions;
+        }
+        Set<String> suggestions = new LinkedHashSet<>(completions);
+        for (String key : this.index.completions(prefix, limit)) {
+            if (suggestions.size() == limit) {
+                break;
+            }
+            suggestions.add(key);
+        }
+        return ImmutableList.copyOf(suggestions);
+    }
+
+    /**
+     * @return {@code <a|b|c>}, built once per snapshot
+     */
+    public Text getUsage() {
+        Text usage = this.usage;
+        if (usage == null) {
+            Text.Builder build = Text.builder();
+            build.append(CommandMessageFormatting.LT_TEXT);
+            for (int i = 0; i < this.keys.length; i++) {
+                if (i != 0) {
+                    build.append(CommandMessageFormatting.PIPE_TEXT);
+                }
+                build.append(Text.of(this.keys[i]));
+            }
+            build.append(CommandMessageFormatting.GT_TEXT);
+            this.usage = usage = build.build();
+        }
+        return usage;
+    }
+
+    private int lowerBound(String key) {
+        int index = Arrays.binarySearch(this.keys, key);
+        return index < 0 ? -index - 1 : index;
+    }
+}
@@ -0,0 +1,165 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.collect.ImmutableList;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.ArgumentParseException;
+import org.spongepowered.api.command.args.CommandArgs;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.args.CommandElement;
+import org.spongepowered.api.text.Text;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A fixed sequence of elements parsed as one. Optional slots are decided
+ * up front from the character classes of the next token where the element
+ * allows it, then by probing, so each token is parsed for real only by the
+ * element that takes it.
+ */
+public final class CompiledArguments extends CommandElement implements ThreadAffinity {
+
+    private final Slot[] slots;
+
+    private CompiledArguments(Builder builder) {
+        super(null);
+        this.slots = builder.slots.toArray(new Slot[0]);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public void parse(CommandSource source, CommandArgs args, CommandContext context) throws ArgumentParseException {
+        // Consecutive optional slots look at the same token; classify it once
+        String token = null;
+        int tokenClasses = 0;
+        for (Slot slot : slots) {
+            if (!slot.optional) {
+                slot.element.parse(source, args, context);
+                continue;
+            }
+            if (args.hasNext()) {
+                String next = args.peek();
+                if (next != token) {
+                    token = next;
+                    tokenClasses = TokenClasses.of(next);
+                }
+                if ((tokenClasses & ~slot.tokenClasses) == 0 && MoreArguments.tryParse(slot.element, source, args, context)) {
+                    continue;
+                }
+            }
+            slot.putDefault(context);
+        }
+    }
+
+    @Override
+    public boolean requiresMainThread() {
+        for (Slot slot : slots) {
+            if (ThreadAffinity.requiresMainThread(slot.element)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Nullable
+    @Override
+    protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+        return null;
+    }
+
+    @Override
+    public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
+        ImmutableList.Builder<String> builder = ImmutableList.builder();
+        for (Slot slot : slots) {
+            Object state = args.getState();
+            if (MoreArguments.tryParse(slot.element, src, args, context) && args.hasNext()) {
+                continue;
+            }
+            args.setState(state);
+            args.nextIfPresent();
+            boolean lastToken = !args.hasNext();
+            args.setState(state);
+            if (lastToken) {
+                builder.addAll(slot.element.complete(src, args, context));
+                args.setState(state);
+            }
+            if (!slot.optional) {
+                break;
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public Text getUsage(CommandSource src) {
+        Text.Builder builder = Text.builder();
+        for (int i = 0; i < slots.length; i++) {
+            if (i > 0) {
+                builder.append(Text.of(" "));
+            }
+            Text usage = slots[i].element.getUsage(src);
+            builder.append(slots[i].optional ? Text.of("[", usage, "]") : usage);
+        }
+        return builder.build();
+    }
+
+    private static final class Slot {
+
+        final CommandElement element;
+        final boolean optional;
+        @Nullable final Object defaultValue;
+        final int tokenClasses;
+
+        Slot(CommandElement element, boolean optional, @Nullable Object defaultValue) {
+            this.element = element;
+            this.optional = optional;
+            this.defaultValue = defaultValue;
+            this.tokenClasses = element instanceof TokenClasses ? ((TokenClasses) element).tokenClasses() : TokenClasses.ANY;
+        }
+
+        void putDefault(CommandContext context) {
+            String key = element.getUntranslatedKey();
+            if (defaultValue != null && key != null) {
+                context.putArg(key, defaultValue);
+            }
+        }
+    }
+
+    public static final class Builder {
+
+        private final List<Slot> slots = new ArrayList<>();
+
+        private Builder() {}
+
+        public Builder then(CommandElement element) {
+            this.slots.add(new Slot(checkNotNull(element, "element"), false, null));
+            return this;
+        }
+
+        /**
+         * Adds an element that is skipped, like
+         * {@link MoreArguments#optionalWeak}, if it does not accept the next
+         * token.
+         */
+        public Builder optional(CommandElement element) {
+            return optional(element, null);
+        }
+
+        public Builder optional(CommandElement element, @Nullable Object defaultValue) {
+            this.slots.add(new Slot(checkNotNull(element, "element"), true, defaultValue));
+            return this;
+        }
+
+        public CompiledArguments build() {
+            checkState(!this.slots.isEmpty(), "no elements were added");
+            return new CompiledArguments(this);
+        }
+    }
+}
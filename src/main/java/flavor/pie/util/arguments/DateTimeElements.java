@@ -0,0 +1,162 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.collect.ImmutableList;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.ArgumentParseException;
+import org.spongepowered.api.command.args.CommandArgs;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.args.CommandElement;
+import org.spongepowered.api.text.Text;
+
+import javax.annotation.Nullable;
+import java.text.ParsePosition;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * The date-time elements behind {@link MoreArguments#dateTime} and its
+ * variants, kept apart so {@link DateTimeParser} and its formatters are
+ * only loaded by plugins that use them.
+ */
+final class DateTimeElements {
+
+    private DateTimeElements() {} //nope
+
+    static CommandElement dateTime(Text key, boolean returnNow, boolean zoned) {
+        return new DateTimeElement(key, returnNow, zoned);
+    }
+
+    private static class DateTimeElement extends CommandElement implements ProbingElement, ThreadAffinity, SampleInput {
+
+        private static final List<String> KEYWORDS = ImmutableList.of("now", "today", "tomorrow", "yesterday");
+        private static final Supplier<Text> INVALID_DATE_TIME = ParseFailure.message("Invalid date-time!");
+
+        private final boolean returnNow;
+        private final boolean zoned;
+        private volatile NowSuggestion nowSuggestion = new NowSuggestion(Long.MIN_VALUE, "");
+
+        protected DateTimeElement(Text key, boolean returnNow, boolean zoned) {
+            super(key);
+            this.returnNow = returnNow;
+            this.zoned = zoned;
+        }
+
+        @Override
+        public String sampleInput() {
+            return "2000-01-01";
+        }
+
+        @Nullable
+        @Override
+        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+            Clock clock = Clock.systemDefaultZone();
+            if (!args.hasNext() && this.returnNow) {
+                return now(clock);
+            }
+            Object state = args.getState();
+            Object value = parse(args.next(), args, clock);
+            if (value == null) {
+                if (this.returnNow) {
+                    args.setState(state);
+                    return now(clock);
+                }
+                throw ParseFailure.of(args, INVALID_DATE_TIME);
+            }
+            return value;
+        }
+
+        @Override
+        public boolean matches(CommandSource source, CommandArgs args) {
+            Object state = args.getState();
+            Optional<String> date = args.nextIfPresent();
+            if (date.isPresent() && parse(date.get(), args, Clock.systemDefaultZone()) != null) {
+                return true;
+            }
+            args.setState(state);
+            return this.returnNow;
+        }
+
+        /**
+         * Parses {@code date}, and a time from the next argument if it has
+         * none of its own.
+         */
+        @Nullable
+        private Object parse(String date, CommandArgs args, Clock clock) {
+            ParsePosition pos = new ParsePosition(0);
+            DateTimeParser.Result result = DateTimeParser.parse(date, pos, clock);
+            if (result == null || pos.getIndex() != date.length()) {
+                return null;
+            }
+            if (result.acceptsTime() && args.hasNext()) {
+                Object timeState = args.getState();
+                String time = args.nextIfPresent().get();
+                pos.setIndex(0);
+                LocalTime localTime = DateTimeParser.parseTime(time, pos);
+                ZoneId zone = localTime != null && pos.getIndex() < time.length() ? DateTimeParser.parseZone(time, pos) : null;
+                if (localTime != null && pos.getIndex() == time.length()) {
+                    result = result.withTime(localTime, zone);
+                } else {
+                    args.setState(timeState);
+                }
+            }
+            return this.zoned ? result.toZonedDateTime(clock.getZone()) : result.toLocalDateTime(clock.getZone());
+        }
+
+        private Object now(Clock clock) {
+            return this.zoned ? ZonedDateTime.now(clock) : LocalDateTime.now(clock);
+        }
+
+        @Override
+        public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
+            String prefix = args.nextIfPresent().orElse("");
+            ImmutableList.Builder<String> builder = ImmutableList.builder();
+            String date = nowSuggestion();
+            if (date.startsWith(prefix)) {
+                builder.add(date);
+            }
+            for (String keyword : KEYWORDS) {
+                if (keyword.startsWith(prefix)) {
+                    builder.add(keyword);
+                }
+            }
+            return builder.build();
+        }
+
+        private String nowSuggestion() {
+            // Only reformat once the displayed second has changed
+            long second = System.currentTimeMillis() / 1000;
+            NowSuggestion suggestion = this.nowSuggestion;
+            if (suggestion.second != second) {
+                suggestion = new NowSuggestion(second, LocalDateTime.now().withNano(0).toString());
+                this.nowSuggestion = suggestion;
+            }
+            return suggestion.text;
+        }
+
+        @Override
+        public Text getUsage(CommandSource src) {
+            if (!this.returnNow) {
+                return super.getUsage(src);
+            } else {
+                return Text.of("[", this.getKey(), "]");
+            }
+        }
+
+        private static final class NowSuggestion {
+
+            final long second;
+            final String text;
+
+            NowSuggestion(long second, String text) {
+                this.second = second;
+                this.text = text;
+            }
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package flavor.pie.util.arguments;
+
+import javax.annotation.Nullable;
+import java.text.ParsePosition;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneRulesProvider;
+import java.util.Set;
+
+/**
+ * Single-pass recognizer for the date-time forms accepted by
+ * {@link MoreArguments#dateTime(org.spongepowered.api.text.Text)}:
+ *
+ * <ul>
+ *     <li>{@code 2017-01-31T08:00[:00[.000]]}, {@code 2017-01-31}, {@code 08:00[:00[.000]]}</li>
+ *     <li>any of the above followed by {@code Z}, {@code +01:00}, {@code -0500} or {@code [Europe/Paris]}</li>
+ *     <li>{@code now}, optionally followed by offsets such as {@code +1h30m} or {@code -2d}</li>
+ *     <li>{@code today}, {@code tomorrow} and {@code yesterday}</li>
+ * </ul>
+ *
+ * <p>Nothing here throws on bad input; failures are reported through the
+ * {@link ParsePosition}'s error index and a {@code null} result.</p>
+ */
+final class DateTimeParser {
+
+    private DateTimeParser() {}
+
+    static final class Result {
+
+        final LocalDate date;
+        @Nullable final LocalTime time;
+        @Nullable final ZoneId zone;
+        final boolean dayKeyword;
+
+        Result(LocalDate date, @Nullable LocalTime time, @Nullable ZoneId zone, boolean dayKeyword) {
+            this.date = date;
+            this.time = time;
+            this.zone = zone;
+            this.dayKeyword = dayKeyword;
+        }
+
+        /**
+         * Whether a following token may still supply the time of day, as in
+         * {@code tomorrow 08:00}.
+         */
+        boolean acceptsTime() {
+            return this.dayKeyword && this.time == null;
+        }
+
+        Result withTime(LocalTime time, @Nullable ZoneId zone) {
+            return new Result(this.date, time, zone != null ? zone : this.zone, false);
+        }
+
+        LocalDateTime toLocalDateTime(ZoneId target) {
+            LocalDateTime dateTime = LocalDateTime.of(this.date, this.time != null ? this.time : LocalTime.MIDNIGHT);
+            if (this.zone == null || this.zone.equals(target)) {
+                return dateTime;
+            }
+            return dateTime.atZone(this.zone).withZoneSameInstant(target).toLocalDateTime();
+        }
+
+        ZonedDateTime toZonedDateTime(ZoneId fallback) {
+            return ZonedDateTime.of(this.date, this.time != null ? this.time : LocalTime.MIDNIGHT, this.zone != null ? this.zone : fallback);
+        }
+    }
+
+    @Nullable
+    static Result parse(CharSequence s, ParsePosition pos, Clock clock) {
+        int start = pos.getIndex();
+        if (matches(s, start, "now")) {
+            pos.setIndex(start + 3);
+            ZonedDateTime now = ZonedDateTime.now(clock);
+            if (pos.getIndex() < s.length()) {
+                now = applyOffsets(s, pos, now);
+                if (now == null) {
+                    pos.setIndex(start);
+                    return null;
+                }
+            }
+            return new Result(now.toLocalDate(), now.toLocalTime(), now.getZone(), false);
+        }
+        LocalDate day = parseDayKeyword(s, pos, clock);
+        if (day != null) {
+            return new Result(day, null, null, true);
+        }
+        if (pos.getErrorIndex() >= 0 && pos.getErrorIndex() != start) {
+            return null;
+        }
+        pos.setErrorIndex(-1);
+        int digits = countDigits(s, start);
+        if (digits == 4) {
+            LocalDate date = parseDate(s, pos);
+            if (date == null) {
+                return null;
+            }
+            LocalTime time = null;
+            if (pos.getIndex() < s.length() && s.charAt(pos.getIndex()) == 'T') {
+                pos.setIndex(pos.getIndex() + 1);
+                time = parseTime(s, pos);
+                if (time == null) {
+                    pos.setIndex(start);
+                    return null;
+                }
+            }
+            return withOptionalZone(s, pos, start, date, time, clock);
+        } else if (digits == 2) {
+            LocalTime time = parseTime(s, pos);
+            if (time == null) {
+                return null;
+            }
+            return withOptionalZone(s, pos, start, null, time, clock);
+        }
+        pos.setErrorIndex(start + digits);
+        return null;
+    }
+
+    @Nullable
+    private static Result withOptionalZone(CharSequence s, ParsePosition pos, int start, @Nullable LocalDate date,
+            LocalTime time, Clock clock) {
+        ZoneId zone = null;
+        if (pos.getIndex() < s.length()) {
+            zone = parseZone(s, pos);
+            if (zone == null) {
+                pos.setIndex(start);
+                return null;
+            }
+        }
+        if (date == null) {
+            date = LocalDate.now(zone != null ? clock.withZone(zone) : clock);
+        }
+        return new Result(date, time, zone, false);
+    }
+
+    @Nullable
+    static LocalDate parseDayKeyword(CharSequence s, ParsePosition pos, Clock clock) {
+        int start = pos.getIndex();
+        int offset;
+        int length;
+        if (matches(s, start, "today")) {
+            offset = 0;
+            length = 5;
+        } else if (matches(s, start, "tomorrow")) {
+            offset = 1;
+            length = 8;
+        } else if (matches(s, start, "yesterday")) {
+            offset = -1;
+            length = 9;
+        } else {
+            pos.setErrorIndex(start);
+            return null;
+        }
+        int end = start + length;
+        if (end < s.length()) {
+            pos.setErrorIndex(end);
+            return null;
+        }
+        pos.setIndex(end);
+        return LocalDate.now(clock).plusDays(offset);
+    }
+
+    @Nullable
+    static LocalDate parseDate(CharSequence s, ParsePosition pos) {
+        int i = pos.getIndex();
+        int year = digits(s, i, 4);
+        if (year < 0 || !isChar(s, i + 4, '-')) {
+            return fail(pos, i);
+        }
+        int month = digits(s, i + 5, 2);
+        if (month < 1 || month > 12 || !isChar(s, i + 7, '-')) {
+            return fail(pos, i + 5);
+        }
+        int day = digits(s, i + 8, 2);
+        if (day < 1 || day > Month.of(month).length(Year.isLeap(year))) {
+            return fail(pos, i + 8);
+        }
+        pos.setIndex(i + 10);
+        return LocalDate.of(year, month, day);
+    }
+
+    @Nullable
+    static LocalTime parseTime(CharSequence s, ParsePosition pos) {
+        int i = pos.getIndex();
+        int hour = digits(s, i, 2);
+        if (hour < 0 || hour > 23 || !isChar(s, i + 2, ':')) {
+            return fail(pos, i);
+        }
+        int minute = digits(s, i + 3, 2);
+        if (minute < 0 || minute > 59) {
+            return fail(pos, i + 3);
+        }
+        i += 5;
+        int second = 0;
+        int nano = 0;
+        if (isChar(s, i, ':')) {
+            second = digits(s, i + 1, 2);
+            if (second < 0 || second > 59) {
+                return fail(pos, i + 1);
+            }
+            i += 3;
+            if (isChar(s, i, '.')) {
+                int fractionDigits = countDigits(s, i + 1);
+                if (fractionDigits == 0 || fractionDigits > 9) {
+                    return fail(pos, i + 1);
+                }
+                nano = digits(s, i + 1, fractionDigits);
+                for (int j = fractionDigits; j < 9; j++) {
+                    nano *= 10;
+                }
+                i += 1 + fractionDigits;
+            }
+        }
+        pos.setIndex(i);
+        return LocalTime.of(hour, minute, second, nano);
+    }
+
+    @Nullable
+    static ZoneId parseZone(CharSequence s, ParsePosition pos) {
+        int i = pos.getIndex();
+        if (isChar(s, i, 'Z')) {
+            pos.setIndex(i + 1);
+            return ZoneOffset.UTC;
+        }
+        if (isChar(s, i, '+') || isChar(s, i, '-')) {
+            int sign = s.charAt(i) == '-' ? -1 : 1;
+            int hours = digits(s, i + 1, 2);
+            if (hours < 0 || hours > 18) {
+                return fail(pos, i + 1);
+            }
+            int j = i + 3;
+            int minutes = 0;
+            if (j < s.length()) {
+                if (isChar(s, j, ':')) {
+                    j++;
+                }
+                minutes = digits(s, j, 2);
+                if (minutes < 0 || minutes > 59 || hours == 18 && minutes != 0) {
+                    return fail(pos, j);
+                }
+                j += 2;
+            }
+            pos.setIndex(j);
+            return ZoneOffset.ofHoursMinutes(sign * hours, sign * minutes);
+        }
+        if (isChar(s, i, '[')) {
+            for (int j = i + 1; j < s.length(); j++) {
+                if (s.charAt(j) == ']') {
+                    String id = s.subSequence(i + 1, j).toString();
+                    if (!ZoneIds.AVAILABLE.contains(id)) {
+                        return fail(pos, i + 1);
+                    }
+                    pos.setIndex(j + 1);
+                    return ZoneId.of(id);
+                }
+            }
+        }
+        return fail(pos, i);
+    }
+
+    @Nullable
+    private static ZonedDateTime applyOffsets(CharSequence s, ParsePosition pos, ZonedDateTime base) {
+        int i = pos.getIndex();
+        int length = s.length();
+        int sign = 0;
+        while (i < length) {
+            char c = s.charAt(i);
+            if (c == '+' || c == '-') {
+                sign = c == '-' ? -1 : 1;
+                i++;
+            } else if (sign == 0) {
+                return fail(pos, i);
+            }
+            int digits = countDigits(s, i);
+            if (digits == 0 || digits > 9 || i + digits >= length) {
+                return fail(pos, i);
+            }
+            long amount = sign * (long) digits(s, i, digits);
+            i += digits;
+            switch (s.charAt(i++)) {
+                case 'w':
+                    base = base.plusWeeks(amount);
+                    break;
+                case 'd':
+                    base = base.plusDays(amount);
+                    break;
+                case 'h':
+                    base = base.plusHours(amount);
+                    break;
+                case 'm':
+                    base = base.plusMinutes(amount);
+                    break;
+                case 's':
+                    base = base.plusSeconds(amount);
+                    break;
+                default:
+                    return fail(pos, i - 1);
+            }
+        }
+        pos.setIndex(i);
+        return base;
+    }
+
+    private static boolean matches(CharSequence s, int start, String word) {
+        if (s.length() - start < word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.toLowerCase(s.charAt(start + i)) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isChar(CharSequence s, int index, char c) {
+        return index < s.length() && s.charAt(index) == c;
+    }
+
+    private static int countDigits(CharSequence s, int start) {
+        int i = start;
+        while (i < s.length() && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+            i++;
+        }
+        return i - start;
+    }
+
+    /**
+     * @return the value of exactly {@code count} digits at {@code start}, or
+     *         -1 if there are not that many
+     */
+    private static int digits(CharSequence s, int start, int count) {
+        if (start + count > s.length()) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    @Nullable
+    private static <T> T fail(ParsePosition pos, int errorIndex) {
+        pos.setErrorIndex(errorIndex);
+        return null;
+    }
+
+    private static final class ZoneIds {
+
+        // getAvailableZoneIds() copies the whole set on every call
+        static final Set<String> AVAILABLE = ZoneRulesProvider.getAvailableZoneIds();
+    }
+}
@@ -0,0 +1,322 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.text.ParsePosition;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Scans compound durations such as {@code 1d2h30m}, {@code 90s},
+ * {@code 1.5h} or the ISO-like {@code P1DT2H} in one pass, accumulating
+ * nanoseconds in a {@code long}. Unit names are case-insensitive aliases,
+ * so localized names can be added next to the defaults.
+ *
+ * <p>Failures never throw; they are reported through the
+ * {@link ParsePosition}'s error index.</p>
+ */
+public final class DurationParser {
+
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long NANOS_PER_MINUTE = 60 * NANOS_PER_SECOND;
+    private static final long NANOS_PER_HOUR = 60 * NANOS_PER_MINUTE;
+    private static final long NANOS_PER_DAY = 24 * NANOS_PER_HOUR;
+    private static final long NANOS_PER_WEEK = 7 * NANOS_PER_DAY;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    private static final DurationParser DEFAULTS = builder().build();
+
+    // aliases[n] holds the lower-cased aliases of length n, units[n] their sizes in nanoseconds
+    private final String[][] aliases;
+    private final long[][] units;
+    private final List<String> suffixes;
+    private final long maximumNanos;
+    private final boolean allowNegative;
+
+    private DurationParser(Builder builder) {
+        int longest = 0;
+        for (String alias : builder.aliases.keySet()) {
+            longest = Math.max(longest, alias.length());
+        }
+        List<List<String>> aliases = new ArrayList<>();
+        List<List<Long>> units = new ArrayList<>();
+        for (int i = 0; i <= longest; i++) {
+            aliases.add(new ArrayList<>());
+            units.add(new ArrayList<>());
+        }
+        for (Map.Entry<String, Long> entry : builder.aliases.entrySet()) {
+            aliases.get(entry.getKey().length()).add(entry.getKey());
+            units.get(entry.getKey().length()).add(entry.getValue());
+        }
+        this.aliases = new String[longest + 1][];
+        this.units = new long[longest + 1][];
+        for (int i = 0; i <= longest; i++) {
+            this.aliases[i] = aliases.get(i).toArray(new String[0]);
+            this.units[i] = new long[this.aliases[i].length];
+            for (int j = 0; j < this.units[i].length; j++) {
+                this.units[i][j] = units.get(i).get(j);
+            }
+        }
+        this.suffixes = ImmutableList.copyOf(builder.suffixes);
+        this.maximumNanos = builder.maximumNanos;
+        this.allowNegative = builder.allowNegative;
+    }
+
+    /**
+     * @return a parser with the aliases w, d, h, m, s and ms (plus their
+     *         English long forms), negative durations allowed and no bound
+     *         beyond what fits in a {@code long} of nanoseconds
+     */
+    public static DurationParser defaults() {
+        return DEFAULTS;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Nullable
+    public Duration parse(CharSequence s) {
+        ParsePosition pos = new ParsePosition(0);
+        long nanos = parseNanos(s, pos);
+        return pos.getErrorIndex() < 0 && pos.getIndex() == s.length() ? Duration.ofNanos(nanos) : null;
+    }
+
+    /**
+     * Parses from {@code pos} to the end of {@code s}.
+     *
+     * @return the total in nanoseconds; meaningless if {@code pos} has an
+     *         error index afterwards
+     */
+    public long parseNanos(CharSequence s, ParsePosition pos) {
+        int start = pos.getIndex();
+        int length = s.length();
+        int i = start;
+        boolean negative = false;
+        if (i < length && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negative = s.charAt(i) == '-';
+            if (negative && !this.allowNegative) {
+                return fail(pos, i);
+            }
+            i++;
+        }
+        if (i < length && (s.charAt(i) == 'P' || s.charAt(i) == 'p')) {
+            i++;
+        }
+        long total = 0;
+        boolean any = false;
+        while (i < length) {
+            if (s.charAt(i) == 'T' || s.charAt(i) == 't') {
+                // ISO separator between the date and time parts
+                i++;
+                if (i == length) {
+                    return fail(pos, i);
+                }
+            }
+            long whole = 0;
+            int digitsStart = i;
+            while (i < length && isDigit(s.charAt(i))) {
+                if (whole > (Long.MAX_VALUE - 9) / 10) {
+                    return fail(pos, digitsStart);
+                }
+                whole = whole * 10 + (s.charAt(i++) - '0');
+            }
+            long fraction = 0;
+            int fractionDigits = 0;
+            if (i < length && (s.charAt(i) == '.' || s.charAt(i) == ',')) {
+                i++;
+                while (i < length && isDigit(s.charAt(i))) {
+                    if (fractionDigits == 9) {
+                        return fail(pos, i);
+                    }
+                    fraction = fraction * 10 + (s.charAt(i++) - '0');
+                    fractionDigits++;
+                }
+                if (fractionDigits == 0) {
+                    return fail(pos, i);
+                }
+            }
+            if (i == digitsStart) {
+                return fail(pos, i);
+            }
+            int unitStart = i;
+            while (i < length && Character.isLetter(s.charAt(i))) {
+                i++;
+            }
+            long unit = unit(s, unitStart, i);
+            if (unit <= 0 && i - unitStart > 1 && i < length && (s.charAt(i - 1) == 'T' || s.charAt(i - 1) == 't')) {
+                // 1DT2H: leave the T for the separator check above
+                unit = unit(s, unitStart, --i);
+            }
+            if (unit <= 0) {
+                return fail(pos, unitStart);
+            }
+            if (whole > (Long.MAX_VALUE - total) / unit) {
+                return fail(pos, digitsStart);
+            }
+            total += whole * unit;
+            if (fractionDigits > 0) {
+                long scale = POWERS_OF_TEN[fractionDigits];
+                long part = fraction * (unit / scale) + fraction * (unit % scale) / scale;
+                if (part > Long.MAX_VALUE - total) {
+                    return fail(pos, digitsStart);
+                }
+                total += part;
+            }
+            any = true;
+        }
+        if (!any) {
+            return fail(pos, i);
+        }
+        if (total > this.maximumNanos) {
+            return fail(pos, start);
+        }
+        pos.setIndex(i);
+        return negative ? -total : total;
+    }
+
+    /**
+     * @return the unit aliases {@code partial} may still become, for completing
+     *         the suffix of a half-typed component
+     */
+    public List<String> completeUnit(String partial) {
+        String lower = partial.toLowerCase(Locale.ROOT);
+        ImmutableList.Builder<String> builder = ImmutableList.builder();
+        if (lower.isEmpty()) {
+            return this.suffixes;
+        }
+        for (int n = lower.length(); n < this.aliases.length; n++) {
+            for (String alias : this.aliases[n]) {
+                if (alias.startsWith(lower)) {
+                    builder.add(alias);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    public List<String> getSuffixes() {
+        return this.suffixes;
+    }
+
+    public Duration getMaximum() {
+        return Duration.ofNanos(this.maximumNanos);
+    }
+
+    private long unit(CharSequence s, int start, int end) {
+        int length = end - start;
+        if (length == 0 || length >= this.aliases.length) {
+            return -1;
+        }
+        String[] candidates = this.aliases[length];
+        outer:
+        for (int i = 0; i < candidates.length; i++) {
+            String alias = candidates[i];
+            for (int j = 0; j < length; j++) {
+                if (Character.toLowerCase(s.charAt(start + j)) != alias.charAt(j)) {
+                    continue outer;
+                }
+            }
+            return this.units[length][i];
+        }
+        return -1;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static long fail(ParsePosition pos, int errorIndex) {
+        pos.setErrorIndex(errorIndex);
+        return 0;
+    }
+
+    public static final class Builder {
+
+        private final Map<String, Long> aliases = new LinkedHashMap<>();
+        private final List<String> suffixes = new ArrayList<>();
+        private long maximumNanos = Long.MAX_VALUE;
+        private boolean allowNegative = true;
+
+        private Builder() {
+            unit(NANOS_PER_WEEK, "w", "week", "weeks");
+            unit(NANOS_PER_DAY, "d", "day", "days");
+            unit(NANOS_PER_HOUR, "h", "hr", "hrs", "hour", "hours");
+            unit(NANOS_PER_MINUTE, "m", "min", "mins", "minute", "minutes");
+            unit(NANOS_PER_SECOND, "s", "sec", "secs", "second", "seconds");
+            unit(NANOS_PER_MILLI, "ms", "milli", "millis", "millisecond", "milliseconds");
+        }
+
+        /**
+         * Adds or replaces an alias, e.g. {@code alias("std", 1, TimeUnit.HOURS)}.
+         */
+        public Builder alias(String alias, long amount, TimeUnit unit) {
+            return alias(alias, Duration.ofNanos(unit.toNanos(amount)));
+        }
+
+        public Builder alias(String alias, Duration unit) {
+            checkNotNull(alias, "alias");
+            checkArgument(!alias.isEmpty(), "alias must not be empty");
+            for (int i = 0; i < alias.length(); i++) {
+                checkArgument(Character.isLetter(alias.charAt(i)), "alias must only contain letters: %s", alias);
+            }
+            checkArgument(!unit.isNegative() && !unit.isZero(), "unit must be positive");
+            this.aliases.put(alias.toLowerCase(Locale.ROOT), unit.toNanos());
+            return this;
+        }
+
+        public Builder clearAliases() {
+            this.aliases.clear();
+            this.suffixes.clear();
+            return this;
+        }
+
+        /**
+         * Sets the suffixes offered when completing a bare number.
+         */
+        public Builder suffixes(String... suffixes) {
+            this.suffixes.clear();
+            for (String suffix : suffixes) {
+                this.suffixes.add(suffix.toLowerCase(Locale.ROOT));
+            }
+            return this;
+        }
+
+        public Builder maximum(Duration maximum) {
+            checkArgument(!maximum.isNegative(), "maximum must not be negative");
+            this.maximumNanos = maximum.getSeconds() >= Long.MAX_VALUE / NANOS_PER_SECOND ? Long.MAX_VALUE : maximum.toNanos();
+            return this;
+        }
+
+        public Builder allowNegative(boolean allowNegative) {
+            this.allowNegative = allowNegative;
+            return this;
+        }
+
+        public DurationParser build() {
+            checkArgument(!this.aliases.isEmpty(), "at least one alias is required");
+            return new DurationParser(this);
+        }
+
+        private void unit(long nanos, String suffix, String... longForms) {
+            this.aliases.put(suffix, nanos);
+            this.suffixes.add(suffix);
+            for (String longForm : longForms) {
+                this.aliases.put(longForm, nanos);
+            }
+        }
+    }
+}
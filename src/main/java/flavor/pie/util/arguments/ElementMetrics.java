@@ -0,0 +1,295 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.collect.ImmutableList;
+import org.spongepowered.api.command.args.CommandElement;
+import org.spongepowered.api.text.Text;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Call counts, failure counts and latency histograms for elements wrapped by
+ * {@link MoreArguments#instrumented}, keyed by element type and key.
+ * Recording never locks; while disabled, wrapped elements skip it entirely.
+ */
+public final class ElementMetrics {
+
+    private static final ConcurrentMap<Id, Recorder> RECORDERS = new ConcurrentHashMap<>();
+    private static volatile boolean enabled = true;
+
+    private ElementMetrics() {}
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        ElementMetrics.enabled = enabled;
+    }
+
+    /**
+     * @return the metrics of every instrumented element type and key seen so
+     *         far. Each operation is read without stopping recording, so
+     *         counts may be a few calls apart.
+     */
+    public static List<Snapshot> snapshot() {
+        ImmutableList.Builder<Snapshot> builder = ImmutableList.builder();
+        for (Recorder recorder : RECORDERS.values()) {
+            builder.add(recorder.snapshot());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Zeroes every recorded metric. Elements stay registered.
+     */
+    public static void reset() {
+        for (Recorder recorder : RECORDERS.values()) {
+            recorder.reset();
+        }
+    }
+
+    static Recorder recorder(CommandElement element) {
+        Class<?> type = element.getClass();
+        String name = type.getSimpleName().isEmpty() ? type.getName() : type.getSimpleName();
+        return RECORDERS.computeIfAbsent(new Id(name, element.getKey()), Recorder::new);
+    }
+
+    public enum Operation {
+        PARSE, COMPLETE, USAGE
+    }
+
+    static final class Recorder {
+
+        private final Id id;
+        private final Histogram[] histograms = new Histogram[Operation.values().length];
+
+        Recorder(Id id) {
+            this.id = id;
+            for (int i = 0; i < this.histograms.length; i++) {
+                this.histograms[i] = new Histogram();
+            }
+        }
+
+        void record(Operation operation, long nanos, boolean failed) {
+            this.histograms[operation.ordinal()].record(nanos, failed);
+        }
+
+        Snapshot snapshot() {
+            OperationSnapshot[] operations = new OperationSnapshot[this.histograms.length];
+            for (int i = 0; i < operations.length; i++) {
+                operations[i] = this.histograms[i].snapshot();
+            }
+            return new Snapshot(this.id.type, this.id.key, operations);
+        }
+
+        void reset() {
+            for (Histogram histogram : this.histograms) {
+                histogram.reset();
+            }
+        }
+    }
+
+    /**
+     * Log-linear buckets: exact below 32ns, then 16 buckets per power of two,
+     * so any recorded value is off by at most 1/16. Values are capped at 2^40ns.
+     */
+    private static final class Histogram {
+
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int MAX_EXPONENT = 40;
+        private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+        private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        static int index(long value) {
+            if (value < 2 * SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int shift = exponent - SUB_BUCKET_BITS;
+            return shift * SUB_BUCKETS + (int) (value >>> shift);
+        }
+
+        static long lowerBound(int index) {
+            if (index < 2 * SUB_BUCKETS) {
+                return index;
+            }
+            int shift = index / SUB_BUCKETS - 1;
+            return (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        }
+
+        void record(long nanos, boolean failed) {
+            long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+            this.counts.incrementAndGet(index(value));
+            this.total.add(value);
+            this.max.accumulate(value);
+            if (failed) {
+                this.failures.increment();
+            }
+        }
+
+        OperationSnapshot snapshot() {
+            long[] counts = new long[BUCKETS];
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = this.counts.get(i);
+                count += counts[i];
+            }
+            return new OperationSnapshot(counts, count, this.failures.sum(), this.total.sum(), this.max.get());
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                this.counts.set(i, 0);
+            }
+            this.failures.reset();
+            this.total.reset();
+            this.max.reset();
+        }
+    }
+
+    public static final class Snapshot {
+
+        private final String elementType;
+        @Nullable private final Text key;
+        private final OperationSnapshot[] operations;
+
+        Snapshot(String elementType, @Nullable Text key, OperationSnapshot[] operations) {
+            this.elementType = elementType;
+            this.key = key;
+            this.operations = operations;
+        }
+
+        /**
+         * @return the simple class name of the wrapped element, such as
+         *         {@code UUIDElement}
+         */
+        public String getElementType() {
+            return this.elementType;
+        }
+
+        @Nullable
+        public Text getKey() {
+            return this.key;
+        }
+
+        public OperationSnapshot get(Operation operation) {
+            return this.operations[operation.ordinal()];
+        }
+    }
+
+    public static final class OperationSnapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long failures;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        OperationSnapshot(long[] counts, long count, long failures, long totalNanos, long maxNanos) {
+            this.counts = counts;
+            this.count = count;
+            this.failures = failures;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long getCount() {
+            return this.count;
+        }
+
+        public long getFailureCount() {
+            return this.failures;
+        }
+
+        public long getTotalNanos() {
+            return this.totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return this.maxNanos;
+        }
+
+        public double getMeanNanos() {
+            return this.count == 0 ? 0 : (double) this.totalNanos / this.count;
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return the upper bound of the bucket holding that percentile, or
+         *         0 if nothing was recorded
+         */
+        public long getPercentileNanos(double percentile) {
+            checkArgument(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100");
+            if (this.count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * this.count));
+            long seen = 0;
+            for (int i = 0; i < this.counts.length; i++) {
+                seen += this.counts[i];
+                if (seen >= rank) {
+                    return Math.min(Histogram.lowerBound(i + 1) - 1, this.maxNanos);
+                }
+            }
+            return this.maxNanos;
+        }
+
+        /**
+         * Visits every non-empty bucket, for exporters that keep their own
+         * histogram type.
+         */
+        public void forEachBucket(BucketConsumer consumer) {
+            for (int i = 0; i < this.counts.length; i++) {
+                if (this.counts[i] != 0) {
+                    consumer.accept(Histogram.lowerBound(i), Histogram.lowerBound(i + 1) - 1, this.counts[i]);
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface BucketConsumer {
+
+        void accept(long lowerNanos, long upperNanos, long count);
+    }
+
+    private static final class Id {
+
+        private final String type;
+        @Nullable private final Text key;
+
+        Id(String type, @Nullable Text key) {
+            this.type = type;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Id)) {
+                return false;
+            }
+            Id other = (Id) o;
+            return this.type.equals(other.type) && Objects.equals(this.key, other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.type.hashCode() * 31 + Objects.hashCode(this.key);
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A trigram index over the keys of a {@link ChoiceSnapshot}, for ranked
+ * fuzzy lookups. Keys are case-folded, and each trigram maps to the sorted
+ * ids of the keys containing it, so a lookup only visits keys sharing a
+ * trigram with the input.
+ *
+ * <p>The index for a new snapshot is derived from the last one. Finding
+ * what changed still looks up every key and copies the key arrays, since
+ * snapshots are handed over whole, but only the postings of added and
+ * removed keys are rebuilt. Rebuilt postings and ids go in overlays over
+ * the maps shared with earlier versions, which are only copied once the
+ * overlays reach a quarter of their size. Removed keys leave gaps in the
+ * ids until they outnumber the live keys.</p>
+ */
+final class FuzzyIndex {
+
+    // Candidates ranked by shared trigrams before edit distances are computed
+    private static final int MIN_CANDIDATES = 32;
+    private static final ThreadLocal<int[]> COUNTS = ThreadLocal.withInitial(() -> new int[0]);
+    // Overlay entries for removed ids and emptied postings
+    private static final Integer NO_ID = -1;
+    private static final int[] NO_POSTINGS = new int[0];
+
+    private final String[] keys;
+    private final String[] folded;
+    private final Map<String, Integer> ids;
+    private final Map<String, Integer> changedIds;
+    private final Map<Long, int[]> postings;
+    private final Map<Long, int[]> changedPostings;
+    private final int removed;
+
+    private FuzzyIndex(String[] keys, String[] folded, Map<String, Integer> ids, Map<String, Integer> changedIds,
+            Map<Long, int[]> postings, Map<Long, int[]> changedPostings, int removed) {
+        this.keys = keys;
+        this.folded = folded;
+        this.ids = ids;
+        this.changedIds = changedIds;
+        this.postings = postings;
+        this.changedPostings = changedPostings;
+        this.removed = removed;
+    }
+
+    static FuzzyIndex build(String[] keys) {
+        String[] folded = new String[keys.length];
+        Map<String, Integer> ids = new HashMap<>();
+        Map<Long, int[]> postings = new HashMap<>();
+        Map<Long, int[]> sizes = new HashMap<>();
+        for (int id = 0; id < keys.length; id++) {
+            folded[id] = fold(keys[id]);
+            ids.put(keys[id], id);
+            for (long trigram : trigrams(folded[id])) {
+                int[] list = postings.get(trigram);
+                int[] size = sizes.computeIfAbsent(trigram, t -> new int[1]);
+                if (list == null) {
+                    list = new int[4];
+                } else if (size[0] == list.length) {
+                    list = Arrays.copyOf(list, list.length * 2);
+                }
+                list[size[0]++] = id;
+                postings.put(trigram, list);
+            }
+        }
+        for (Map.Entry<Long, int[]> entry : postings.entrySet()) {
+            entry.setValue(Arrays.copyOf(entry.getValue(), sizes.get(entry.getKey())[0]));
+        }
+        return new FuzzyIndex(keys.clone(), folded, ids, Collections.emptyMap(), postings, Collections.emptyMap(), 0);
+    }
+
+    /**
+     * @return an index of {@code keys}, sharing the postings of every
+     *         trigram untouched by the keys added or removed since this one
+     */
+    FuzzyIndex update(String[] keys) {
+        boolean[] kept = new boolean[this.keys.length];
+        List<String> added = new ArrayList<>();
+        for (String key : keys) {
+            int id = id(key);
+            if (id < 0) {
+                added.add(key);
+            } else {
+                kept[id] = true;
+            }
+        }
+        List<Integer> gone = new ArrayList<>();
+        for (int id = 0; id < kept.length; id++) {
+            if (!kept[id] && this.keys[id] != null) {
+                gone.add(id);
+            }
+        }
+        if (added.isEmpty() && gone.isEmpty()) {
+            return this;
+        }
+        int removed = this.removed + gone.size();
+        if (removed > keys.length) {
+            // Mostly gaps by now, so start over with dense ids
+            return build(keys);
+        }
+        int size = this.keys.length + added.size();
+        String[] newKeys = Arrays.copyOf(this.keys, size);
+        String[] newFolded = Arrays.copyOf(this.folded, size);
+        Map<String, Integer> changedIds = new HashMap<>(this.changedIds);
+        Map<Long, Set<Integer>> removals = new HashMap<>();
+        for (int id : gone) {
+            changedIds.put(newKeys[id], NO_ID);
+            for (long trigram : trigrams(newFolded[id])) {
+                removals.computeIfAbsent(trigram, t -> new HashSet<>()).add(id);
+            }
+            newKeys[id] = null;
+            newFolded[id] = null;
+        }
+        Map<Long, List<Integer>> additions = new HashMap<>();
+        for (int i = 0; i < added.size(); i++) {
+            int id = this.keys.length + i;
+            newKeys[id] = added.get(i);
+            newFolded[id] = fold(added.get(i));
+            changedIds.put(newKeys[id], id);
+            for (long trigram : trigrams(newFolded[id])) {
+                additions.computeIfAbsent(trigram, t -> new ArrayList<>()).add(id);
+            }
+        }
+        Map<Long, int[]> changedPostings = new HashMap<>(this.changedPostings);
+        Set<Long> touched = new HashSet<>(removals.keySet());
+        touched.addAll(additions.keySet());
+        for (long trigram : touched) {
+            int[] old = postings(trigram);
+            Set<Integer> drop = removals.getOrDefault(trigram, Collections.emptySet());
+            List<Integer> add = additions.getOrDefault(trigram, Collections.emptyList());
+            // New ids are all higher than old ones, so appending keeps the order
+            int[] list = new int[old.length - drop.size() + add.size()];
+            int n = 0;
+            for (int id : old) {
+                if (!drop.contains(id)) {
+                    list[n++] = id;
+                }
+            }
+            for (int id : add) {
+                list[n++] = id;
+            }
+            changedPostings.put(trigram, n == 0 ? NO_POSTINGS : list);
+        }
+        if ((changedIds.size() + changedPostings.size()) * 4 > this.ids.size() + this.postings.size()) {
+            return new FuzzyIndex(newKeys, newFolded, merge(this.ids, changedIds, NO_ID), Collections.emptyMap(),
+                    merge(this.postings, changedPostings, NO_POSTINGS), Collections.emptyMap(), removed);
+        }
+        return new FuzzyIndex(newKeys, newFolded, this.ids, changedIds, this.postings, changedPostings, removed);
+    }
+
+    private static <K, V> Map<K, V> merge(Map<K, V> base, Map<K, V> changes, V absent) {
+        Map<K, V> merged = new HashMap<>(base);
+        for (Map.Entry<K, V> entry : changes.entrySet()) {
+            if (entry.getValue() == absent) {
+                merged.remove(entry.getKey());
+            } else {
+                merged.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * @return the id of {@code key}, or {@code -1} if it is not indexed
+     */
+    int id(String key) {
+        Integer id = this.changedIds.get(key);
+        if (id == null) {
+            id = this.ids.get(key);
+        }
+        return id == null ? -1 : id;
+    }
+
+    private int[] postings(long trigram) {
+        int[] list = this.changedPostings.get(trigram);
+        if (list == null) {
+            list = this.postings.get(trigram);
+        }
+        return list == null ? NO_POSTINGS : list;
+    }
+
+    /**
+     * @return the only key equal to {@code input} ignoring case, if there is
+     *         exactly one
+     */
+    @Nullable
+    String foldedMatch(String input) {
+        String folded = fold(input);
+        // A match has every trigram of the input, so only the shortest
+        // posting list needs checking
+        int[] shortest = null;
+        for (long trigram : trigrams(folded)) {
+            int[] list = postings(trigram);
+            if (list.length == 0) {
+                return null;
+            }
+            if (shortest == null || list.length < shortest.length) {
+                shortest = list;
+            }
+        }
+        String match = null;
+        for (int id : shortest) {
+            if (folded.equals(this.folded[id])) {
+                if (match != null) {
+                    return null;
+                }
+                match = this.keys[id];
+            }
+        }
+        return match;
+    }
+
+    /**
+     * @return up to {@code limit} keys closest to {@code input}, best first
+     */
+    List<String> closest(String input, int limit) {
+        return rank(input, limit, false);
+    }
+
+    /**
+     * Like {@link #closest}, but compares {@code partial} with only as much
+     * of each key as has been typed.
+     */
+    List<String> completions(String partial, int limit) {
+        return rank(partial, limit, true);
+    }
+
+    private List<String> rank(String input, int limit, boolean prefix) {
+        String folded = fold(input);
+        int[] candidates = candidates(folded, Math.max(MIN_CANDIDATES, limit * 4));
+        int maxDistance = Math.max(2, folded.length() / 2);
+        long[] ranked = new long[candidates.length];
+        int n = 0;
+        for (int i = 0; i < candidates.length; i++) {
+            String key = this.folded[candidates[i]];
+            String start = key.length() > folded.length() + 1 ? key.substring(0, folded.length() + 1) : key;
+            // A key the input is a mistyped start of is still a good guess,
+            // just not as good as one it matches in full
+            int distance = prefix ? prefixDistance(folded, start, maxDistance)
+                    : Math.min(distance(folded, key, maxDistance), prefixDistance(folded, start, maxDistance) + 1);
+            if (distance <= maxDistance) {
+                // Candidates are in order of shared trigrams, so i breaks ties
+                ranked[n++] = (long) distance << 32 | i;
+            }
+        }
+        Arrays.sort(ranked, 0, n);
+        ImmutableList.Builder<String> builder = ImmutableList.builder();
+        for (int i = 0; i < n && i < limit; i++) {
+            builder.add(this.keys[candidates[(int) ranked[i]]]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the ids of up to {@code limit} keys sharing a trigram with
+     *         {@code folded}, most shared trigrams first
+     */
+    private int[] candidates(String folded, int limit) {
+        long[] trigrams = trigrams(folded);
+        int[] counts = COUNTS.get();
+        if (counts.length < this.keys.length) {
+            counts = new int[this.keys.length];
+            COUNTS.set(counts);
+        }
+        // Count shared trigrams per key, touching only the postings involved
+        int[][] lists = new int[trigrams.length][];
+        int total = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            lists[i] = postings(trigrams[i]);
+            total += lists[i].length;
+        }
+        int[] touched = new int[Math.min(total, this.keys.length)];
+        int distinct = 0;
+        for (int[] list : lists) {
+            for (int id : list) {
+                if (counts[id]++ == 0) {
+                    touched[distinct++] = id;
+                }
+            }
+        }
+        // Then bucket them by count, highest first, clearing the counts again
+        int[] position = new int[trigrams.length + 2];
+        for (int i = 0; i < distinct; i++) {
+            position[counts[touched[i]]]++;
+        }
+        for (int count = trigrams.length, before = 0; count >= 0; count--) {
+            int size = position[count];
+            position[count] = before;
+            before += size;
+        }
+        int[] ids = new int[Math.min(distinct, limit)];
+        for (int i = 0; i < distinct; i++) {
+            int id = touched[i];
+            int index = position[counts[id]]++;
+            if (index < ids.length) {
+                ids[index] = id;
+            }
+            counts[id] = 0;
+        }
+        return ids;
+    }
+
+    private static String fold(String key) {
+        return key.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return the distinct trigrams of {@code s}, padded so that short
+     *         strings and their first and last letters still count
+     */
+    private static long[] trigrams(String s) {
+        String padded = "\u0000\u0000" + s + "\u0000";
+        long[] trigrams = new long[padded.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = (long) padded.charAt(i) << 32 | (long) padded.charAt(i + 1) << 16 | padded.charAt(i + 2);
+        }
+        Arrays.sort(trigrams);
+        int n = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (i == 0 || trigrams[i] != trigrams[i - 1]) {
+                trigrams[n++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, n);
+    }
+
+    /**
+     * @return the edit distance from {@code a} to {@code b}, or
+     *         {@code max + 1} if it is greater than {@code max}
+     */
+    private static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] row = distanceRow(a, b, max);
+        return row == null ? max + 1 : Math.min(row[b.length()], max + 1);
+    }
+
+    /**
+     * @return the smallest edit distance from {@code a} to any prefix of
+     *         {@code b}
+     */
+    private static int prefixDistance(String a, String b, int max) {
+        int[] row = distanceRow(a, b, max);
+        if (row == null) {
+            return max + 1;
+        }
+        int best = max + 1;
+        for (int value : row) {
+            best = Math.min(best, value);
+        }
+        return best;
+    }
+
+    /**
+     * @return the last row of the edit distance table from {@code a} to
+     *         {@code b}, or {@code null} once every entry exceeds {@code max}
+     */
+    @Nullable
+    private static int[] distanceRow(String a, String b, int max) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return null;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous;
+    }
+}
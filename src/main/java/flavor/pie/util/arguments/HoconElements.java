@@ -0,0 +1,127 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.CharSource;
+import com.google.common.reflect.TypeToken;
+import ninja.leaping.configurate.ConfigurationNode;
+import ninja.leaping.configurate.ConfigurationOptions;
+import ninja.leaping.configurate.commented.CommentedConfigurationNode;
+import ninja.leaping.configurate.commented.SimpleCommentedConfigurationNode;
+import ninja.leaping.configurate.hocon.HoconConfigurationLoader;
+import ninja.leaping.configurate.objectmapping.ObjectMappingException;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.ArgumentParseException;
+import org.spongepowered.api.command.args.CommandArgs;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.args.CommandElement;
+import org.spongepowered.api.item.inventory.ItemStack;
+import org.spongepowered.api.text.Text;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The HOCON elements behind {@link MoreArguments#hoconNode}, kept apart so
+ * Configurate is only loaded by plugins that use them.
+ */
+final class HoconElements {
+
+    private HoconElements() {} //nope
+
+    static CommandElement node(Text key, int maxLength, int cacheSize) {
+        return new NodeElement(key, maxLength, cacheSize);
+    }
+
+    private static class NodeElement extends CommandElement implements ThreadAffinity, SampleInput {
+
+        private static final ConfigurationOptions OPTIONS = ConfigurationOptions.defaults();
+
+        private final int maxLength;
+        @Nullable private final Cache<String, Object> cache;
+        // The loader is built once; each parse hands it its input through here
+        private final ThreadLocal<CharSequence> input = new ThreadLocal<>();
+        private final HoconConfigurationLoader loader = HoconConfigurationLoader.builder()
+                .setSource(() -> new BufferedReader(CharSource.wrap(input.get()).openStream()))
+                .setDefaultOptions(OPTIONS)
+                .build();
+
+        protected NodeElement(@Nullable Text key, int maxLength, int cacheSize) {
+            super(key);
+            this.maxLength = maxLength;
+            this.cache = cacheSize > 0 ? CacheBuilder.newBuilder().maximumSize(cacheSize).build() : null;
+        }
+
+        @Override
+        public String sampleInput() {
+            return "a=1";
+        }
+
+        @Nullable
+        @Override
+        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+            Cache<String, Object> cache = MoreArguments.isWarmingUp() ? null : this.cache;
+            CharSequence argument = args.hasNext() ? RemainingInput.take(args, maxLength,
+                    () -> Text.of("Node is too long! (maximum " + maxLength + " characters)")) : "";
+            // Only cached nodes need the input as a string
+            String cacheKey = cache != null ? argument.toString() : null;
+            if (cache != null) {
+                Object cached = cache.getIfPresent(cacheKey);
+                if (cached != null) {
+                    // setValue copies the cached structure, so it is never shared
+                    return SimpleCommentedConfigurationNode.root(OPTIONS).setValue(cached);
+                }
+            }
+            CommentedConfigurationNode node;
+            input.set(argument);
+            try {
+                node = loader.load();
+            } catch (IOException e) {
+                throw ParseFailure.of(args, () -> Text.of("Node parsing failed: " + e.getMessage()));
+            } finally {
+                input.remove();
+            }
+            if (cache != null) {
+                Object value = node.getValue();
+                if (value != null) {
+                    cache.put(cacheKey, value);
+                }
+                // Comments can't be cached, so a miss drops them too rather than
+                // returning a differently shaped node depending on the cache
+                return SimpleCommentedConfigurationNode.root(OPTIONS).setValue(value);
+            }
+            return node;
+        }
+
+        @Override
+        public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
+            return ImmutableList.of();
+        }
+    }
+
+    private static class ItemStackElement extends NodeElement {
+
+        protected ItemStackElement(@Nullable Text key, ItemStack mergeWith) {
+            super(key, Integer.MAX_VALUE, 0/*, ((Supplier<ConfigurationNode>) () -> {try {return HoconConfigurationLoader.builder().build().createEmptyNode().setValue(TypeToken.of(ItemStack.class), mergeWith);} catch (ObjectMappingException e) {throw new IllegalArgumentException();}}).get()*/);
+        }
+
+        @Override
+        public boolean requiresMainThread() {
+            // Deserializing item stacks reads the game registry
+            return true;
+        }
+
+        @Nullable @Override
+        public Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+            ConfigurationNode node = (ConfigurationNode) super.parseValue(source, args);
+            try {
+                return node.getValue(TypeToken.of(ItemStack.class));
+            } catch (ObjectMappingException e) {
+                throw args.createError(Text.of("Could not parse ItemStack from node: "+e.getMessage()));
+            }
+        }
+    }
+}
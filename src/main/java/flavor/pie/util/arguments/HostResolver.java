@@ -0,0 +1,128 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Resolves host names off the calling thread, keeping successful lookups in a
+ * bounded cache so repeated commands for the same host never wait on DNS.
+ */
+public final class HostResolver {
+
+    private final Cache<String, InetAddress> cache;
+    private final ConcurrentMap<String, CompletableFuture<InetAddress>> pending = new ConcurrentHashMap<>();
+    private final Executor executor;
+
+    private HostResolver(Builder builder) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(builder.maximumSize)
+                .expireAfterWrite(builder.ttl, builder.ttlUnit)
+                .build();
+        this.executor = builder.executor != null ? builder.executor : LazyExecutor.RESOLVER;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Resolves the host. Literals and cached names complete immediately;
+     * anything else is looked up on the resolver's executor, and concurrent
+     * requests for the same name share one lookup.
+     */
+    public CompletableFuture<InetAddress> resolve(String host) {
+        InetAddress literal = IpAddresses.forLiteral(host);
+        if (literal != null) {
+            return CompletableFuture.completedFuture(literal);
+        }
+        String key = host.toLowerCase(Locale.ROOT);
+        InetAddress cached = this.cache.getIfPresent(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<InetAddress> future = this.pending.get(key);
+        if (future != null) {
+            return future;
+        }
+        CompletableFuture<InetAddress> created = new CompletableFuture<>();
+        future = this.pending.putIfAbsent(key, created);
+        if (future != null) {
+            return future;
+        }
+        try {
+            this.executor.execute(() -> {
+                try {
+                    InetAddress address = InetAddress.getByName(key);
+                    this.cache.put(key, address);
+                    created.complete(address);
+                } catch (UnknownHostException | RuntimeException ex) {
+                    created.completeExceptionally(ex);
+                } finally {
+                    this.pending.remove(key, created);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            this.pending.remove(key, created);
+            created.completeExceptionally(ex);
+        }
+        return created;
+    }
+
+    public Optional<InetAddress> getIfPresent(String host) {
+        InetAddress literal = IpAddresses.forLiteral(host);
+        if (literal != null) {
+            return Optional.of(literal);
+        }
+        return Optional.ofNullable(this.cache.getIfPresent(host.toLowerCase(Locale.ROOT)));
+    }
+
+    public void invalidateAll() {
+        this.cache.invalidateAll();
+    }
+
+    public static final class Builder {
+
+        private long maximumSize = 1024;
+        private long ttl = 5;
+        private TimeUnit ttlUnit = TimeUnit.MINUTES;
+        private Executor executor;
+
+        private Builder() {}
+
+        public Builder maximumSize(long maximumSize) {
+            checkArgument(maximumSize > 0, "maximumSize must be positive");
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public Builder expireAfter(long ttl, TimeUnit unit) {
+            checkArgument(ttl > 0, "ttl must be positive");
+            this.ttl = ttl;
+            this.ttlUnit = checkNotNull(unit, "unit");
+            return this;
+        }
+
+        public Builder executor(Executor executor) {
+            this.executor = checkNotNull(executor, "executor");
+            return this;
+        }
+
+        public HostResolver build() {
+            return new HostResolver(this);
+        }
+    }
+}
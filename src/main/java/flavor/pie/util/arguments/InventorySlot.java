@@ -0,0 +1,131 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * A named inventory slot as used by vanilla's {@code /replaceitem}, such as
+ * {@code slot.armor.chest} or {@code slot.hotbar.3}, together with its
+ * vanilla slot number.
+ */
+public final class InventorySlot {
+
+    private static final Map<String, InventorySlot> BY_NAME;
+    // Keyed by everything up to and including the last dot of a partial name
+    private static final Map<String, List<String>> COMPLETIONS;
+    private static final BitSet IDS = new BitSet();
+
+    static {
+        List<InventorySlot> slots = new ArrayList<>();
+        slots.add(new InventorySlot("slot.weapon.mainhand", 98));
+        slots.add(new InventorySlot("slot.weapon.offhand", 99));
+        slots.add(new InventorySlot("slot.armor.feet", 100));
+        slots.add(new InventorySlot("slot.armor.legs", 101));
+        slots.add(new InventorySlot("slot.armor.chest", 102));
+        slots.add(new InventorySlot("slot.armor.head", 103));
+        range(slots, "slot.container.", 54, 0);
+        range(slots, "slot.hotbar.", 9, 0);
+        range(slots, "slot.inventory.", 27, 9);
+        range(slots, "slot.enderchest.", 27, 200);
+        range(slots, "slot.villager.", 8, 300);
+        slots.add(new InventorySlot("slot.horse.saddle", 400));
+        slots.add(new InventorySlot("slot.horse.armor", 401));
+        slots.add(new InventorySlot("slot.horse.chest", 499));
+        range(slots, "slot.horse.", 15, 500);
+
+        ImmutableMap.Builder<String, InventorySlot> byName = ImmutableMap.builder();
+        Map<String, TreeSet<String>> completions = new HashMap<>();
+        for (InventorySlot slot : slots) {
+            byName.put(slot.name, slot);
+            IDS.set(slot.id);
+            String name = slot.name;
+            int from = 0;
+            for (int dot = name.indexOf('.'); dot >= 0; dot = name.indexOf('.', dot + 1)) {
+                completions.computeIfAbsent(name.substring(0, from), k -> new TreeSet<>()).add(name.substring(0, dot + 1));
+                from = dot + 1;
+            }
+            completions.computeIfAbsent(name.substring(0, from), k -> new TreeSet<>()).add(name);
+        }
+        BY_NAME = byName.build();
+        ImmutableMap.Builder<String, List<String>> completionsBuilder = ImmutableMap.builder();
+        for (Map.Entry<String, TreeSet<String>> entry : completions.entrySet()) {
+            completionsBuilder.put(entry.getKey(), ImmutableList.copyOf(entry.getValue()));
+        }
+        COMPLETIONS = completionsBuilder.build();
+    }
+
+    private final String name;
+    private final int id;
+
+    private InventorySlot(String name, int id) {
+        this.name = name;
+        this.id = id;
+    }
+
+    private static void range(List<InventorySlot> slots, String prefix, int count, int firstId) {
+        for (int i = 0; i < count; i++) {
+            slots.add(new InventorySlot(prefix + i, firstId + i));
+        }
+    }
+
+    @Nullable
+    public static InventorySlot byName(String name) {
+        return BY_NAME.get(name);
+    }
+
+    /**
+     * @return whether every number from {@code from} to {@code to}, inclusive,
+     *         is a vanilla slot number
+     */
+    static boolean isIdRange(int from, int to) {
+        return from >= 0 && from <= to && to < IDS.length() && IDS.nextClearBit(from) > to;
+    }
+
+    public static Collection<InventorySlot> values() {
+        return BY_NAME.values();
+    }
+
+    /**
+     * @return the names, or next dotted segments ending in {@code .}, that
+     *         {@code partial} can be completed to
+     */
+    public static List<String> complete(String partial) {
+        List<String> candidates = COMPLETIONS.get(partial.substring(0, partial.lastIndexOf('.') + 1));
+        if (candidates == null) {
+            return ImmutableList.of();
+        }
+        ImmutableList.Builder<String> builder = ImmutableList.builder();
+        for (String candidate : candidates) {
+            if (candidate.startsWith(partial)) {
+                builder.add(candidate);
+            }
+        }
+        return builder.build();
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return the vanilla slot number, e.g. 102 for {@code slot.armor.chest}
+     *         or 9 for {@code slot.inventory.0}
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
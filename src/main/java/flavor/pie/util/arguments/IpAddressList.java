@@ -0,0 +1,92 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.collect.ImmutableList;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The addresses parsed by {@link MoreArguments#ipList}, packed by family:
+ * IPv4 addresses as {@code int}s and IPv6 addresses as 16-byte runs of one
+ * {@code byte} array. Each family keeps its input order.
+ */
+public final class IpAddressList {
+
+    private final int[] v4;
+    private final byte[] v6;
+
+    IpAddressList(int[] v4, byte[] v6) {
+        this.v4 = v4;
+        this.v6 = v6;
+    }
+
+    public int size() {
+        return this.v4.length + getV6Count();
+    }
+
+    public int getV4Count() {
+        return this.v4.length;
+    }
+
+    public int getV6Count() {
+        return this.v6.length / 16;
+    }
+
+    /**
+     * @return the address, most significant byte first
+     */
+    public int getV4(int index) {
+        return this.v4[index];
+    }
+
+    /**
+     * @return a copy of the 16 address bytes
+     */
+    public byte[] getV6(int index) {
+        return Arrays.copyOfRange(this.v6, index * 16, index * 16 + 16);
+    }
+
+    /**
+     * @param address a 4 or 16 byte address
+     */
+    public boolean contains(byte[] address) {
+        if (address.length == 4) {
+            int packed = (address[0] & 0xFF) << 24 | (address[1] & 0xFF) << 16 | (address[2] & 0xFF) << 8 | address[3] & 0xFF;
+            for (int v4 : this.v4) {
+                if (v4 == packed) {
+                    return true;
+                }
+            }
+        } else if (address.length == 16) {
+            outer:
+            for (int offset = 0; offset < this.v6.length; offset += 16) {
+                for (int i = 0; i < 16; i++) {
+                    if (this.v6[offset + i] != address[i]) {
+                        continue outer;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean contains(InetAddress address) {
+        return contains(address.getAddress());
+    }
+
+    /**
+     * @return the IPv4 addresses followed by the IPv6 addresses
+     */
+    public List<InetAddress> toInetAddresses() {
+        ImmutableList.Builder<InetAddress> builder = ImmutableList.builder();
+        for (int v4 : this.v4) {
+            builder.add(IpAddresses.toAddress(new byte[] {(byte) (v4 >>> 24), (byte) (v4 >>> 16), (byte) (v4 >>> 8), (byte) v4}));
+        }
+        for (int i = 0; i < getV6Count(); i++) {
+            builder.add(IpAddresses.toAddress(getV6(i)));
+        }
+        return builder.build();
+    }
+}
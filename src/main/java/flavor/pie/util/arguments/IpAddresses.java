@@ -0,0 +1,194 @@
+package flavor.pie.util.arguments;
+
+import javax.annotation.Nullable;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+public final class IpAddresses {
+
+    private IpAddresses() {} //nope
+
+    /**
+     * Parses an IPv4 or IPv6 literal without consulting a resolver.
+     *
+     * @return the 4 or 16 address bytes, or {@code null} if the input is not a literal
+     */
+    @Nullable
+    public static byte[] parse(CharSequence s) {
+        return parse(s, 0, s.length());
+    }
+
+    @Nullable
+    public static byte[] parse(CharSequence s, int start, int end) {
+        if (end - start >= 2 && s.charAt(start) == '[' && s.charAt(end - 1) == ']') {
+            start++;
+            end--;
+        }
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) == ':') {
+                return parseV6(s, start, end);
+            }
+        }
+        byte[] out = new byte[4];
+        return parseV4(s, start, end, out, 0) ? out : null;
+    }
+
+    @Nullable
+    public static InetAddress forLiteral(CharSequence s) {
+        return toAddress(parse(s));
+    }
+
+    @Nullable
+    public static InetAddress toAddress(@Nullable byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            return InetAddress.getByAddress(bytes);
+        } catch (UnknownHostException ex) {
+            throw new IllegalArgumentException("Address must be 4 or 16 bytes long", ex);
+        }
+    }
+
+    /**
+     * Checks whether the input is a syntactically valid DNS name, so that
+     * obvious garbage never reaches the resolver.
+     */
+    public static boolean isHostName(CharSequence s) {
+        int length = s.length();
+        if (length > 0 && s.charAt(length - 1) == '.') {
+            length--;
+        }
+        if (length == 0 || length > 253) {
+            return false;
+        }
+        int labelStart = 0;
+        for (int i = 0; i <= length; i++) {
+            char c = i == length ? '.' : s.charAt(i);
+            if (c == '.') {
+                int labelLength = i - labelStart;
+                if (labelLength == 0 || labelLength > 63 || s.charAt(labelStart) == '-' || s.charAt(i - 1) == '-') {
+                    return false;
+                }
+                labelStart = i + 1;
+            } else if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '-')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean parseV4(CharSequence s, int start, int end, byte[] out, int offset) {
+        int part = 0;
+        int value = 0;
+        int digits = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 3) {
+                    return false;
+                }
+                value = value * 10 + (c - '0');
+                if (value > 255) {
+                    return false;
+                }
+            } else if (c == '.') {
+                if (digits == 0 || part == 3) {
+                    return false;
+                }
+                out[offset + part++] = (byte) value;
+                value = 0;
+                digits = 0;
+            } else {
+                return false;
+            }
+        }
+        if (digits == 0 || part != 3) {
+            return false;
+        }
+        out[offset + 3] = (byte) value;
+        return true;
+    }
+
+    @Nullable
+    static byte[] parseV6(CharSequence s, int start, int end) {
+        byte[] out = new byte[16];
+        int pos = 0;
+        int gap = -1;
+        int i = start;
+        if (i < end && s.charAt(i) == ':') {
+            if (i + 1 >= end || s.charAt(i + 1) != ':') {
+                return null;
+            }
+            gap = 0;
+            i += 2;
+        }
+        while (i < end) {
+            if (pos == 16) {
+                return null;
+            }
+            int groupStart = i;
+            int value = 0;
+            while (i < end) {
+                int digit = hexDigit(s.charAt(i));
+                if (digit < 0) {
+                    break;
+                }
+                if (i - groupStart == 4) {
+                    return null;
+                }
+                value = value << 4 | digit;
+                i++;
+            }
+            if (i < end && s.charAt(i) == '.') {
+                // embedded IPv4 tail, e.g. ::ffff:10.0.0.1
+                if (pos > 12 || !parseV4(s, groupStart, end, out, pos)) {
+                    return null;
+                }
+                pos += 4;
+                break;
+            }
+            if (i == groupStart) {
+                return null;
+            }
+            out[pos++] = (byte) (value >>> 8);
+            out[pos++] = (byte) value;
+            if (i == end) {
+                break;
+            }
+            if (s.charAt(i) != ':' || ++i == end) {
+                return null;
+            }
+            if (s.charAt(i) == ':') {
+                if (gap >= 0) {
+                    return null;
+                }
+                gap = pos;
+                i++;
+            }
+        }
+        if (gap < 0) {
+            return pos == 16 ? out : null;
+        }
+        if (pos == 16) {
+            return null;
+        }
+        int tail = pos - gap;
+        System.arraycopy(out, gap, out, 16 - tail, tail);
+        for (int j = gap; j < 16 - tail; j++) {
+            out[j] = 0;
+        }
+        return out;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,178 @@
+package flavor.pie.util.arguments;
+
+import javax.annotation.Nullable;
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.OptionalInt;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * An immutable, inclusive range of IPv4 or IPv6 addresses.
+ */
+public final class IpRange {
+
+    final byte[] start;
+    final byte[] end;
+    private final int prefixLength;
+
+    private IpRange(byte[] start, byte[] end, int prefixLength) {
+        this.start = start;
+        this.end = end;
+        this.prefixLength = prefixLength;
+    }
+
+    public static IpRange of(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        return new IpRange(bytes, bytes, bytes.length * 8);
+    }
+
+    public static IpRange of(InetAddress address, int prefixLength) {
+        byte[] bytes = address.getAddress();
+        checkArgument(prefixLength >= 0 && prefixLength <= bytes.length * 8, "Invalid prefix length %s", prefixLength);
+        return ofPrefix(bytes, prefixLength);
+    }
+
+    public static IpRange of(InetAddress first, InetAddress last) {
+        IpRange range = ofBounds(first.getAddress(), last.getAddress());
+        checkArgument(range != null, "%s and %s do not form a range", first, last);
+        return range;
+    }
+
+    /**
+     * Parses {@code address/prefix}, {@code first-last} or a single address.
+     * Only literals are accepted; nothing is ever resolved.
+     *
+     * @return the range, or {@code null} if the input is not a valid range
+     */
+    @Nullable
+    public static IpRange parse(CharSequence s) {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c == '/') {
+                byte[] address = IpAddresses.parse(s, 0, i);
+                if (address == null || i + 1 == length || length - i - 1 > 3) {
+                    return null;
+                }
+                int prefixLength = 0;
+                for (int j = i + 1; j < length; j++) {
+                    char d = s.charAt(j);
+                    if (d < '0' || d > '9') {
+                        return null;
+                    }
+                    prefixLength = prefixLength * 10 + (d - '0');
+                }
+                if (prefixLength > address.length * 8) {
+                    return null;
+                }
+                return ofPrefix(address, prefixLength);
+            } else if (c == '-') {
+                byte[] first = IpAddresses.parse(s, 0, i);
+                byte[] last = IpAddresses.parse(s, i + 1, length);
+                return first == null || last == null ? null : ofBounds(first, last);
+            }
+        }
+        byte[] address = IpAddresses.parse(s);
+        return address == null ? null : new IpRange(address, address, address.length * 8);
+    }
+
+    private static IpRange ofPrefix(byte[] address, int prefixLength) {
+        byte[] first = address.clone();
+        byte[] last = address.clone();
+        for (int bit = prefixLength; bit < address.length * 8; bit++) {
+            int mask = 0x80 >>> (bit & 7);
+            first[bit >>> 3] &= ~mask;
+            last[bit >>> 3] |= mask;
+        }
+        return new IpRange(first, last, prefixLength);
+    }
+
+    @Nullable
+    private static IpRange ofBounds(byte[] first, byte[] last) {
+        if (first.length != last.length || compare(first, last) > 0) {
+            return null;
+        }
+        return new IpRange(first, last, prefixLength(first, last));
+    }
+
+    private static int prefixLength(byte[] first, byte[] last) {
+        int bits = first.length * 8;
+        int common = 0;
+        while (common < bits && bit(first, common) == bit(last, common)) {
+            common++;
+        }
+        for (int i = common; i < bits; i++) {
+            if (bit(first, i) != 0 || bit(last, i) != 1) {
+                return -1;
+            }
+        }
+        return common;
+    }
+
+    static int bit(byte[] address, int index) {
+        return (address[index >>> 3] >>> (7 - (index & 7))) & 1;
+    }
+
+    static int compare(byte[] a, byte[] b) {
+        for (int i = 0; i < a.length; i++) {
+            int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return 0;
+    }
+
+    public InetAddress getStart() {
+        return IpAddresses.toAddress(this.start);
+    }
+
+    public InetAddress getEnd() {
+        return IpAddresses.toAddress(this.end);
+    }
+
+    public boolean isIpv6() {
+        return this.start.length == 16;
+    }
+
+    /**
+     * @return the CIDR prefix length, if this range is exactly one CIDR block
+     */
+    public OptionalInt getPrefixLength() {
+        return this.prefixLength < 0 ? OptionalInt.empty() : OptionalInt.of(this.prefixLength);
+    }
+
+    public boolean contains(InetAddress address) {
+        return contains(address.getAddress());
+    }
+
+    public boolean contains(byte[] address) {
+        return address.length == this.start.length && compare(this.start, address) <= 0 && compare(address, this.end) <= 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IpRange)) {
+            return false;
+        }
+        IpRange other = (IpRange) o;
+        return Arrays.equals(this.start, other.start) && Arrays.equals(this.end, other.end);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(this.start) + Arrays.hashCode(this.end);
+    }
+
+    @Override
+    public String toString() {
+        if (this.prefixLength >= 0) {
+            return getStart().getHostAddress() + "/" + this.prefixLength;
+        }
+        return getStart().getHostAddress() + "-" + getEnd().getHostAddress();
+    }
+}
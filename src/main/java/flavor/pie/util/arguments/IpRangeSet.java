@@ -0,0 +1,210 @@
+package flavor.pie.util.arguments;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+
+/**
+ * An immutable set of {@link IpRange}s, stored as one binary prefix trie per
+ * address family in flat {@code int} arrays. Lookups walk at most 32 (IPv4)
+ * or 128 (IPv6) bits and do not allocate.
+ */
+public final class IpRangeSet {
+
+    // Each trie node n owns the slots 2n (bit 0) and 2n + 1 (bit 1). A slot is
+    // EMPTY, COVERED (every address below it is in the set) or a child index.
+    // Node 0 is the root, so no slot ever points back at it.
+    private static final int EMPTY = 0;
+    private static final int COVERED = -1;
+
+    private static final IpRangeSet EMPTY_SET = new Builder().build();
+
+    private final int[] v4;
+    private final int[] v6;
+    private final boolean allV4;
+    private final boolean allV6;
+
+    private IpRangeSet(int[] v4, int[] v6, boolean allV4, boolean allV6) {
+        this.v4 = v4;
+        this.v6 = v6;
+        this.allV4 = allV4;
+        this.allV6 = allV6;
+    }
+
+    public static IpRangeSet of() {
+        return EMPTY_SET;
+    }
+
+    public static IpRangeSet of(Iterable<IpRange> ranges) {
+        return builder().addAll(ranges).build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public boolean contains(InetAddress address) {
+        return contains(address.getAddress());
+    }
+
+    /**
+     * @param address a 4 or 16 byte address; IPv4-mapped IPv6 addresses are
+     *                checked against the IPv4 ranges
+     */
+    public boolean contains(byte[] address) {
+        if (address.length == 4) {
+            return contains((address[0] & 0xFF) << 24 | (address[1] & 0xFF) << 16 | (address[2] & 0xFF) << 8 | address[3] & 0xFF);
+        }
+        if (address.length != 16) {
+            return false;
+        }
+        if (isV4Mapped(address)) {
+            return contains((address[12] & 0xFF) << 24 | (address[13] & 0xFF) << 16 | (address[14] & 0xFF) << 8 | address[15] & 0xFF);
+        }
+        if (this.allV6) {
+            return true;
+        }
+        int[] nodes = this.v6;
+        int node = 0;
+        for (int i = 0; i < 128; i++) {
+            int next = nodes[2 * node + IpRange.bit(address, i)];
+            if (next == COVERED) {
+                return true;
+            } else if (next == EMPTY) {
+                return false;
+            }
+            node = next;
+        }
+        return false;
+    }
+
+    /**
+     * @param address an IPv4 address in network order, e.g. {@code 0x0A000001}
+     *                for {@code 10.0.0.1}
+     */
+    public boolean contains(int address) {
+        if (this.allV4) {
+            return true;
+        }
+        int[] nodes = this.v4;
+        int node = 0;
+        for (int i = 31; i >= 0; i--) {
+            int next = nodes[2 * node + (address >>> i & 1)];
+            if (next == COVERED) {
+                return true;
+            } else if (next == EMPTY) {
+                return false;
+            }
+            node = next;
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return !this.allV4 && !this.allV6 && this.v4[0] == EMPTY && this.v4[1] == EMPTY && this.v6[0] == EMPTY && this.v6[1] == EMPTY;
+    }
+
+    private static boolean isV4Mapped(byte[] address) {
+        for (int i = 0; i < 10; i++) {
+            if (address[i] != 0) {
+                return false;
+            }
+        }
+        return address[10] == (byte) 0xFF && address[11] == (byte) 0xFF;
+    }
+
+    public static final class Builder {
+
+        private final Trie v4 = new Trie(32);
+        private final Trie v6 = new Trie(128);
+
+        private Builder() {}
+
+        public Builder add(IpRange range) {
+            (range.isIpv6() ? this.v6 : this.v4).insert(range.start, range.end);
+            return this;
+        }
+
+        public Builder addAll(Iterable<IpRange> ranges) {
+            for (IpRange range : ranges) {
+                add(range);
+            }
+            return this;
+        }
+
+        public IpRangeSet build() {
+            return new IpRangeSet(this.v4.trimmed(), this.v6.trimmed(), this.v4.all, this.v6.all);
+        }
+    }
+
+    private static final class Trie {
+
+        private final int bits;
+        private int[] nodes = new int[64];
+        private int size = 1;
+        private boolean all;
+
+        Trie(int bits) {
+            this.bits = bits;
+        }
+
+        void insert(byte[] first, byte[] last) {
+            if (this.all) {
+                return;
+            }
+            // Past these depths the bounds are all zeros / all ones, so they no
+            // longer constrain which subtrees are covered.
+            int firstLimit = this.bits;
+            while (firstLimit > 0 && IpRange.bit(first, firstLimit - 1) == 0) {
+                firstLimit--;
+            }
+            int lastLimit = this.bits;
+            while (lastLimit > 0 && IpRange.bit(last, lastLimit - 1) == 1) {
+                lastLimit--;
+            }
+            if (firstLimit == 0 && lastLimit == 0) {
+                this.all = true;
+                return;
+            }
+            insert(0, 0, first, last, firstLimit, lastLimit, true, true);
+        }
+
+        private void insert(int node, int depth, byte[] first, byte[] last, int firstLimit, int lastLimit,
+                boolean firstTight, boolean lastTight) {
+            int firstBit = firstTight ? IpRange.bit(first, depth) : 0;
+            int lastBit = lastTight ? IpRange.bit(last, depth) : 1;
+            for (int b = firstBit; b <= lastBit; b++) {
+                int slot = 2 * node + b;
+                int child = this.nodes[slot];
+                if (child == COVERED) {
+                    continue;
+                }
+                boolean childFirstTight = firstTight && b == firstBit && depth + 1 < firstLimit;
+                boolean childLastTight = lastTight && b == lastBit && depth + 1 < lastLimit;
+                if (!childFirstTight && !childLastTight) {
+                    this.nodes[slot] = COVERED;
+                    continue;
+                }
+                if (child == EMPTY) {
+                    child = allocate();
+                    this.nodes[slot] = child;
+                }
+                insert(child, depth + 1, first, last, firstLimit, lastLimit, childFirstTight, childLastTight);
+                if (this.nodes[2 * child] == COVERED && this.nodes[2 * child + 1] == COVERED) {
+                    this.nodes[slot] = COVERED;
+                }
+            }
+        }
+
+        private int allocate() {
+            int node = this.size++;
+            if (2 * this.size > this.nodes.length) {
+                this.nodes = Arrays.copyOf(this.nodes, this.nodes.length * 2);
+            }
+            return node;
+        }
+
+        int[] trimmed() {
+            return Arrays.copyOf(this.nodes, 2 * this.size);
+        }
+    }
+}
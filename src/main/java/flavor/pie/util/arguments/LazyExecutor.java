@@ -0,0 +1,63 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The executors {@link HostResolver}, {@link ResourcePackCache} and
+ * {@link AsyncCompleter} fall back on when they are not given one. Each
+ * has its own threads, so that lookups stuck on DNS or downloads never hold
+ * up completion. Threads are started on first use and stop after a minute
+ * idle, or when {@link MoreArguments#shutdownExecutor} is called; anything
+ * run after that starts them again.
+ */
+final class LazyExecutor implements Executor {
+
+    static final LazyExecutor RESOLVER = new LazyExecutor("resolver");
+    static final LazyExecutor RESOURCE_PACKS = new LazyExecutor("resourcepack");
+    static final LazyExecutor COMPLETION = new LazyExecutor("completion");
+
+    private static final int THREADS = 2;
+
+    private final String name;
+    @Nullable private ThreadPoolExecutor pool;
+
+    private LazyExecutor(String name) {
+        this.name = name;
+    }
+
+    static void shutdownAll() {
+        RESOLVER.shutdown();
+        RESOURCE_PACKS.shutdown();
+        COMPLETION.shutdown();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        ThreadPoolExecutor pool;
+        synchronized (this) {
+            pool = this.pool;
+            if (pool == null) {
+                pool = new ThreadPoolExecutor(THREADS, THREADS, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(),
+                        new ThreadFactoryBuilder().setNameFormat("MoreArguments-" + this.name + "-%d").setDaemon(true).build());
+                pool.allowCoreThreadTimeOut(true);
+                this.pool = pool;
+            }
+        }
+        // Throws RejectedExecutionException if shut down in the meantime,
+        // which every caller already handles
+        pool.execute(command);
+    }
+
+    private synchronized void shutdown() {
+        if (this.pool != null) {
+            this.pool.shutdown();
+            this.pool = null;
+        }
+    }
+}
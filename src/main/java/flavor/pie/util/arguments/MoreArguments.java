@@ -1,44 +1,42 @@
 package flavor.pie.util.arguments;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.reflect.TypeToken;
-import ninja.leaping.configurate.ConfigurationNode;
-import ninja.leaping.configurate.hocon.HoconConfigurationLoader;
-import ninja.leaping.configurate.objectmapping.ObjectMappingException;
+import org.spongepowered.api.Sponge;
 import org.spongepowered.api.command.CommandMessageFormatting;
 import org.spongepowered.api.command.CommandSource;
 import org.spongepowered.api.command.args.*;
+import org.spongepowered.api.command.args.parsing.SingleArg;
 import org.spongepowered.api.entity.living.player.Player;
-import org.spongepowered.api.item.inventory.ItemStack;
-import org.spongepowered.api.resourcepack.ResourcePack;
-import org.spongepowered.api.resourcepack.ResourcePacks;
+import org.spongepowered.api.profile.GameProfile;
 import org.spongepowered.api.text.Text;
-import org.spongepowered.api.text.serializer.TextParseException;
-import org.spongepowered.api.text.serializer.TextSerializers;
 import org.spongepowered.api.util.GuavaCollectors;
 import org.spongepowered.api.util.StartsWithPredicate;
 
 import javax.annotation.Nullable;
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.io.StringReader;
+import java.lang.ref.WeakReference;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.math.RoundingMode;
 import java.net.*;
 import java.time.Duration;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static org.spongepowered.api.util.SpongeApiTranslationHelper.t;
 
 public class MoreArguments {
@@ -46,83 +44,68 @@ public class MoreArguments {
     private MoreArguments() {} //nope
 
     public static CommandElement url(Text key) {
-        return new URIElement(key, false);
+        return UriElements.uri(key, false, UriRules.urls());
+    }
+
+    public static CommandElement url(Text key, UriRules rules) {
+        return UriElements.uri(key, false, rules);
     }
 
     public static CommandElement uri(Text key) {
-        return new URIElement(key, true);
+        return UriElements.uri(key, true, UriRules.urls());
     }
 
-    private static class URIElement extends CommandElement {
+    public static CommandElement uri(Text key, UriRules rules) {
+        return UriElements.uri(key, true, rules);
+    }
 
-        private final boolean returnURI;
+    public static CommandElement resourcePack(Text key) {
+        return UriElements.resourcePack(key);
+    }
 
-        protected URIElement(@Nullable Text key, boolean returnURI) {
-            super(key);
-            this.returnURI = returnURI;
-        }
+    public static CommandElement resourcePackAsync(Text key, ResourcePackCache cache) {
+        return UriElements.resourcePackAsync(key, cache);
+    }
 
-        @Nullable
-        @Override
-        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
-            String str = args.next();
-            URL url;
-            try {
-                url = new URL(str);
-            } catch (MalformedURLException ex) {
-                throw new ArgumentParseException(Text.of("Invalid URL!"), ex, str, 0);
-            }
-            URI uri;
-            try {
-                uri = url.toURI();
-            } catch (URISyntaxException ex) {
-                throw new ArgumentParseException(Text.of("Invalid URL!"), ex, str, 0);
-            }
-            if (returnURI) {
-                return uri;
-            } else {
-                return url;
-            }
-        }
+    public static CommandElement ip(Text key) {
+        return new IpElement(key, false, false);
+    }
 
-        @Override
-        public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
-            return ImmutableList.of();
-        }
+    public static CommandElement ipOrSource(Text key) {
+        return new IpElement(key, true, false);
     }
 
-    public static CommandElement resourcePack(Text key) {
-        return new ResourcePackElement(key);
+    public static CommandElement ipLiteral(Text key) {
+        return new IpElement(key, false, true);
     }
 
-    private static class ResourcePackElement extends URIElement {
-        protected ResourcePackElement(@Nullable Text key) {
-            super(key, true);
-        }
-        @Nullable
-        @Override
-        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
-            URI uri = (URI) super.parseValue(source, args);
-            ResourcePack pack;
-            try {
-                pack = ResourcePacks.fromUri(uri);
-            } catch (FileNotFoundException ex) {
-                throw new ArgumentParseException(Text.of("No resource pack located at this URL!"), ex, uri.toString(), 0);
-            }
-            return pack;
-        }
+    public static CommandElement ipLiteralOrSource(Text key) {
+        return new IpElement(key, true, true);
     }
 
-    public static CommandElement ip(Text key) {
-        return new IpElement(key, false);
+    public static CommandElement ipResolving(Text key, HostResolver resolver) {
+        return new ResolvingIpElement(key, resolver);
     }
 
-    public static CommandElement ipOrSource(Text key) {
-        return new IpElement(key, true);
+    public static CommandElement ipRange(Text key) {
+        return new IpRangeElement(key, false);
+    }
+
+    public static CommandElement ipRangeOrSource(Text key) {
+        return new IpRangeElement(key, true);
     }
 
     public static CommandElement hoconNode(Text key) {
-        return new NodeElement(key);
+        return HoconElements.node(key, Integer.MAX_VALUE, 0);
+    }
+
+    /**
+     * Like {@link #hoconNode(Text)}, but caps the input at {@code maxLength}
+     * characters and caches up to {@code cacheSize} parsed values. Cached
+     * nodes never keep the comments of their input.
+     */
+    public static CommandElement hoconNode(Text key, int maxLength, int cacheSize) {
+        return HoconElements.node(key, maxLength, cacheSize);
     }
 
 //    public static CommandElement itemStack(Text key, ItemStack mergeWith) {
@@ -130,7 +113,7 @@ public class MoreArguments {
 //    }
 
     public static CommandElement choices(Text key, Function<CommandSource, Map<String, Object>> function) {
-        return new SuppliedChoicesCommandElement(key, function, (src) -> function.apply(src).keySet().size() < 5);
+        return new SuppliedChoicesCommandElement(key, function, (choices) -> choices.size() < 5);
     }
 
     public static CommandElement bigDecimal(Text key) {
@@ -138,20 +121,58 @@ public class MoreArguments {
     }
 
     public static CommandElement choices(Text key, Function<CommandSource, Map<String, Object>> function, boolean showChoicesInUsage) {
-        return new SuppliedChoicesCommandElement(key, function, (src) -> showChoicesInUsage);
+        return new SuppliedChoicesCommandElement(key, function, (choices) -> showChoicesInUsage);
+    }
+
+    public static CommandElement choices(Text key, CachedChoices choices) {
+        return new SnapshotChoicesCommandElement(key, choices, (snapshot) -> snapshot.size() < 5);
+    }
+
+    public static CommandElement choices(Text key, CachedChoices choices, boolean showChoicesInUsage) {
+        return new SnapshotChoicesCommandElement(key, choices, (snapshot) -> showChoicesInUsage);
     }
 
     public static CommandElement bigInteger(Text key) {
         return new BigIntegerElement(key);
     }
 
-    private static class IpElement extends CommandElement {
+    public static CommandElement boundedInteger(Text key, NumberBounds bounds) {
+        return new BoundedNumberElement(key, bounds, false);
+    }
+
+    public static CommandElement boundedDecimal(Text key, NumberBounds bounds) {
+        return new BoundedNumberElement(key, bounds, true);
+    }
+
+    private static class IpElement extends CommandElement implements TokenClasses, ThreadAffinity, SampleInput {
+
+        private static final Supplier<Text> NO_ADDRESS = ParseFailure.message("No IP address was specified, and source was not a player!");
+        private static final Supplier<Text> INVALID_ADDRESS_NOT_PLAYER = ParseFailure.message("Invalid IP address, and source was not a player!");
+        private static final Supplier<Text> INVALID_ADDRESS = ParseFailure.message("Invalid IP address!");
 
         boolean self;
+        boolean strict;
 
-        protected IpElement(@Nullable Text key, boolean self) {
+        protected IpElement(@Nullable Text key, boolean self, boolean strict) {
             super(key);
             this.self = self;
+            this.strict = strict;
+        }
+
+        @Override
+        public String sampleInput() {
+            return "127.0.0.1";
+        }
+
+        @Override
+        public int tokenClasses() {
+            // Host names go to the resolver, which accepts all sorts
+            return self || !strict ? ANY : DIGIT | HEX_LETTER | DOT | COLON | BRACKET;
+        }
+
+        @Override
+        public boolean requiresMainThread() {
+            return self;
         }
 
         @Nullable
@@ -160,19 +181,28 @@ public class MoreArguments {
             if (!args.hasNext() && self)
                 if (source instanceof Player)
                     return ((Player) source).getConnection().getAddress().getAddress();
-                else throw args.createError(Text.of("No IP address was specified, and source was not a player!"));
+                else throw ParseFailure.of(args, NO_ADDRESS);
             Object state = args.getState();
             String s = args.next();
+            InetAddress address = strict ? IpAddresses.forLiteral(s) : lookup(s);
+            if (address != null) {
+                return address;
+            }
+            if (self) {
+                if (source instanceof Player) {
+                    args.setState(state);
+                    return ((Player) source).getConnection().getAddress().getAddress();
+                } else throw ParseFailure.of(args, INVALID_ADDRESS_NOT_PLAYER);
+            }
+            throw ParseFailure.of(args, INVALID_ADDRESS);
+        }
+
+        @Nullable
+        private static InetAddress lookup(String s) {
             try {
                 return InetAddress.getByName(s);
             } catch (UnknownHostException e) {
-                if (self) {
-                    if (source instanceof Player) {
-                        args.setState(state);
-                        return ((Player) source).getConnection().getAddress().getAddress();
-                    } else throw args.createError(Text.of("Invalid IP address, and source was not a player!"));
-                }
-                throw args.createError(Text.of("Invalid IP address!"));
+                return null;
             }
         }
 
@@ -187,71 +217,182 @@ public class MoreArguments {
         }
     }
 
-    private static class NodeElement extends CommandElement {
+    private static class ResolvingIpElement extends KeyElement implements ThreadAffinity, SampleInput {
 
-        protected NodeElement(@Nullable Text key) {
+        private static final Supplier<Text> INVALID_HOST = ParseFailure.message("Invalid IP address or host name!");
+
+        private final HostResolver resolver;
+
+        protected ResolvingIpElement(Text key, HostResolver resolver) {
             super(key);
+            this.resolver = resolver;
+        }
+
+        @Override
+        public String sampleInput() {
+            return "127.0.0.1";
         }
 
         @Nullable
         @Override
         protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
-            StringBuilder builder = new StringBuilder();
-            while (args.hasNext()) {
-                builder.append(" ").append(args.next());
+            String s = args.next();
+            InetAddress literal = IpAddresses.forLiteral(s);
+            if (literal != null) {
+                return CompletableFuture.completedFuture(literal);
             }
-            String argument = builder.toString();
-            try {
-                return HoconConfigurationLoader.builder().setSource(() -> new BufferedReader(new StringReader(argument))).build().load();
-            } catch (IOException e) {
-                throw args.createError(Text.of("Node parsing failed: "+e.getMessage()));
+            if (!IpAddresses.isHostName(s)) {
+                throw ParseFailure.of(args, INVALID_HOST);
             }
+            return resolver.resolve(s);
+        }
+    }
+
+    private static class IpRangeElement extends CommandElement implements ProbingElement, TokenClasses, ThreadAffinity, SampleInput {
+
+        private static final Supplier<Text> NO_RANGE = ParseFailure.message("No IP range was specified, and source was not a player!");
+        private static final Supplier<Text> INVALID_RANGE_NOT_PLAYER = ParseFailure.message("Invalid IP range, and source was not a player!");
+        private static final Supplier<Text> INVALID_RANGE = ParseFailure.message("Invalid IP range!");
+
+        private final boolean self;
+
+        protected IpRangeElement(@Nullable Text key, boolean self) {
+            super(key);
+            this.self = self;
         }
 
         @Override
-        public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
-            return ImmutableList.of();
+        public String sampleInput() {
+            return "10.0.0.0/8";
         }
-    }
 
-    private static class ItemStackElement extends NodeElement {
+        @Override
+        public int tokenClasses() {
+            return self ? ANY : DIGIT | HEX_LETTER | DOT | COLON | BRACKET | DASH | SLASH;
+        }
 
-        protected ItemStackElement(@Nullable Text key, ItemStack mergeWith) {
-            super(key/*, ((Supplier<ConfigurationNode>) () -> {try {return HoconConfigurationLoader.builder().build().createEmptyNode().setValue(TypeToken.of(ItemStack.class), mergeWith);} catch (ObjectMappingException e) {throw new IllegalArgumentException();}}).get()*/);
+        @Override
+        public boolean requiresMainThread() {
+            return self;
         }
 
-        @Nullable @Override
-        public Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
-            ConfigurationNode node = (ConfigurationNode) super.parseValue(source, args);
-            try {
-                return node.getValue(TypeToken.of(ItemStack.class));
-            } catch (ObjectMappingException e) {
-                throw args.createError(Text.of("Could not parse ItemStack from node: "+e.getMessage()));
+        @Nullable
+        @Override
+        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+            if (!args.hasNext() && self)
+                if (source instanceof Player)
+                    return IpRange.of(((Player) source).getConnection().getAddress().getAddress());
+                else throw ParseFailure.of(args, NO_RANGE);
+            Object state = args.getState();
+            IpRange range = IpRange.parse(args.next());
+            if (range != null) {
+                return range;
+            }
+            if (self) {
+                if (source instanceof Player) {
+                    args.setState(state);
+                    return IpRange.of(((Player) source).getConnection().getAddress().getAddress());
+                } else throw ParseFailure.of(args, INVALID_RANGE_NOT_PLAYER);
+            }
+            throw ParseFailure.of(args, INVALID_RANGE);
+        }
+
+        @Override
+        public boolean matches(CommandSource source, CommandArgs args) {
+            Object state = args.getState();
+            Optional<String> arg = args.nextIfPresent();
+            if (arg.isPresent() && IpRange.parse(arg.get()) != null) {
+                return true;
             }
+            args.setState(state);
+            return self && source instanceof Player;
+        }
+
+        @Override
+        public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
+            return ImmutableList.of();
+        }
+
+        @Override
+        public Text getUsage(CommandSource src) {
+            return src instanceof Player && self ? Text.of("[", super.getUsage(src), "]") : super.getUsage(src);
         }
     }
 
-    private static class SuppliedChoicesCommandElement extends CommandElement {
+    private static class SuppliedChoicesCommandElement extends CommandElement implements ProbingElement, ThreadAffinity {
 
         private final Function<CommandSource, Map<String, Object>> choices;
-        private final Predicate<CommandSource> choicesInUsage;
+        private final Predicate<Map<String, Object>> choicesInUsage;
+        // The choices a successful probe supplied, for the parse from the
+        // same position straight after it. Probes aren't always followed by
+        // a parse, so this is weak to keep it from pinning the source
+        private final ThreadLocal<WeakReference<Probe>> lastProbe = new ThreadLocal<>();
 
-        SuppliedChoicesCommandElement(Text key, Function<CommandSource, Map<String, Object>> choices, Predicate<CommandSource> choicesInUsage) {
+        SuppliedChoicesCommandElement(Text key, Function<CommandSource, Map<String, Object>> choices, Predicate<Map<String, Object>> choicesInUsage) {
             super(key);
             this.choices = choices;
             this.choicesInUsage = choicesInUsage;
         }
 
+        @Override
+        public boolean requiresMainThread() {
+            // The choices come from plugin code, which may read game state
+            return true;
+        }
+
         @Override
         public Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
-            Map<String, Object> currentChoices = choices.apply(source);
+            Map<String, Object> currentChoices = probedChoices(source, args);
             Object value = currentChoices.get(args.next());
             if (value == null) {
-                throw args.createError(t("Argument was not a valid choice. Valid choices: %s", currentChoices.keySet().toString()));
+                throw ParseFailure.of(args, () -> t("Argument was not a valid choice. Valid choices: %s", currentChoices.keySet().toString()));
             }
             return value;
         }
 
+        @Override
+        public boolean matches(CommandSource source, CommandArgs args) {
+            lastProbe.remove();
+            Object state = args.getState();
+            Optional<String> arg = args.nextIfPresent();
+            if (!arg.isPresent()) {
+                return false;
+            }
+            Map<String, Object> currentChoices = choices.apply(source);
+            if (currentChoices.get(arg.get()) == null) {
+                return false;
+            }
+            lastProbe.set(new WeakReference<>(new Probe(source, args, state, currentChoices)));
+            return true;
+        }
+
+        private Map<String, Object> probedChoices(CommandSource source, CommandArgs args) {
+            WeakReference<Probe> reference = lastProbe.get();
+            Probe probe = reference == null ? null : reference.get();
+            lastProbe.remove();
+            if (probe != null) {
+                if (probe.source == source && probe.args == args && Objects.equals(probe.state, args.getState())) {
+                    return probe.choices;
+                }
+            }
+            return choices.apply(source);
+        }
+
+        private static final class Probe {
+
+            final CommandSource source;
+            final CommandArgs args;
+            @Nullable final Object state;
+            final Map<String, Object> choices;
+
+            Probe(CommandSource source, CommandArgs args, @Nullable Object state, Map<String, Object> choices) {
+                this.source = source;
+                this.args = args;
+                this.state = state;
+                this.choices = choices;
+            }
+        }
+
         @Override
         public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
             Map<String, Object> currentChoices = choices.apply(src);
@@ -262,7 +403,7 @@ public class MoreArguments {
         @Override
         public Text getUsage(CommandSource commander) {
             Map<String, Object> currentChoices = choices.apply(commander);
-            if (this.choicesInUsage.test(commander)) {
+            if (this.choicesInUsage.test(currentChoices)) {
                 final Text.Builder build = Text.builder();
                 build.append(CommandMessageFormatting.LT_TEXT);
                 for (Iterator<String> it = currentChoices.keySet().iterator(); it.hasNext();) {
@@ -279,44 +420,160 @@ public class MoreArguments {
         }
     }
 
-    private static class BigDecimalElement extends CommandElement {
+    private static class SnapshotChoicesCommandElement extends CommandElement implements ProbingElement, ThreadAffinity {
 
-        protected BigDecimalElement(@Nullable Text key) {
+        private static final int ERROR_CHOICES = 10;
+
+        private final CachedChoices choices;
+        private final Predicate<ChoiceSnapshot> choicesInUsage;
+
+        SnapshotChoicesCommandElement(Text key, CachedChoices choices, Predicate<ChoiceSnapshot> choicesInUsage) {
             super(key);
+            this.choices = choices;
+            this.choicesInUsage = choicesInUsage;
         }
 
-        @Nullable
         @Override
-        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
-            String next = args.next();
-            try {
-                return new BigDecimal(next);
-            } catch (NumberFormatException ex) {
-                throw args.createError(Text.of("Expected a number, but input "+next+" was not"));
+        public boolean requiresMainThread() {
+            // The choices come from plugin code, which may read game state
+            return true;
+        }
+
+        @Override
+        public Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+            ChoiceSnapshot snapshot = choices.get(source);
+            String arg = args.next();
+            Object value = snapshot.lookup(arg);
+            if (value == null) {
+                // Finding the nearest choices is the expensive part, so only do it if the message is read
+                throw ParseFailure.of(args, () -> {
+                    if (snapshot.isIndexed()) {
+                        List<String> closest = snapshot.closest(arg, ERROR_CHOICES);
+                        if (!closest.isEmpty()) {
+                            return t("Argument was not a valid choice. Did you mean: %s?", String.join(", ", closest));
+                        }
+                    }
+                    List<String> nearest = snapshot.nearest(arg, ERROR_CHOICES);
+                    String shown = String.join(", ", nearest);
+                    if (nearest.size() < snapshot.size()) {
+                        shown += ", ... (" + snapshot.size() + " total)";
+                    }
+                    return t("Argument was not a valid choice. Valid choices: %s", shown);
+                });
             }
+            return value;
+        }
+
+        @Override
+        public boolean matches(CommandSource source, CommandArgs args) {
+            Optional<String> arg = args.nextIfPresent();
+            return arg.isPresent() && choices.get(source).lookup(arg.get()) != null;
         }
 
         @Override
         public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
-            return ImmutableList.of();
+            ChoiceSnapshot snapshot = choices.get(src);
+            return snapshot.suggest(args.nextIfPresent().orElse(""), choices.getMaximumCompletions());
+        }
+
+        @Override
+        public Text getUsage(CommandSource commander) {
+            ChoiceSnapshot snapshot = choices.get(commander);
+            return this.choicesInUsage.test(snapshot) ? snapshot.getUsage() : super.getUsage(commander);
         }
     }
 
-    private static class BigIntegerElement extends CommandElement {
+    private static class BigDecimalElement extends CommandElement implements ProbingElement, TokenClasses, ThreadAffinity, SampleInput {
 
-        protected BigIntegerElement(@Nullable Text key) {
+        protected BigDecimalElement(@Nullable Text key) {
             super(key);
         }
 
+        @Override
+        public String sampleInput() {
+            return "1.5";
+        }
+
+        @Override
+        public int tokenClasses() {
+            return DIGIT | DOT | DASH | PLUS | HEX_LETTER;
+        }
+
         @Nullable
         @Override
         protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
-            String integerString = args.next();
-            try {
-                return new BigInteger(integerString);
-            } catch (NumberFormatException ex) {
-                throw args.createError(Text.of("Expected an integer, but input "+integerString+" was not"));
+            String next = args.next();
+            if (!isDecimal(next)) {
+                throw ParseFailure.of(args, () -> Text.of("Expected a number, but input "+next+" was not"));
+            }
+            return new BigDecimal(next);
+        }
+
+        @Override
+        public boolean matches(CommandSource source, CommandArgs args) {
+            Optional<String> arg = args.nextIfPresent();
+            return arg.isPresent() && isDecimal(arg.get());
+        }
+
+        /**
+         * Accepts exactly what {@link BigDecimal#BigDecimal(String)} does, so
+         * the constructor never throws.
+         */
+        static boolean isDecimal(String s) {
+            int length = s.length();
+            int i = 0;
+            if (i < length && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                i++;
+            }
+            int digits = 0;
+            long fracDigits = 0;
+            while (i < length && Character.isDigit(s.charAt(i))) {
+                digits++;
+                i++;
+            }
+            if (i < length && s.charAt(i) == '.') {
+                i++;
+                while (i < length && Character.isDigit(s.charAt(i))) {
+                    digits++;
+                    fracDigits++;
+                    i++;
+                }
             }
+            if (digits == 0) {
+                return false;
+            }
+            if (i == length) {
+                return true;
+            }
+            if (s.charAt(i) != 'e' && s.charAt(i) != 'E') {
+                return false;
+            }
+            i++;
+            boolean negative = false;
+            if (i < length && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                negative = s.charAt(i) == '-';
+                i++;
+            }
+            if (i == length) {
+                return false;
+            }
+            long exponent = 0;
+            for (; i < length; i++) {
+                int digit = Character.digit(s.charAt(i), 10);
+                if (digit < 0) {
+                    return false;
+                }
+                exponent = exponent * 10 + digit;
+                if (exponent > Integer.MAX_VALUE + 1L) {
+                    return false;
+                }
+            }
+            if (negative) {
+                exponent = -exponent;
+            }
+            long scale = fracDigits - exponent;
+            return exponent >= Integer.MIN_VALUE && exponent <= Integer.MAX_VALUE
+                    && scale >= Integer.MIN_VALUE && scale <= Integer.MAX_VALUE;
         }
 
         @Override
@@ -325,229 +582,1495 @@ public class MoreArguments {
         }
     }
 
-    private static class InventorySlotElement extends CommandElement {
+    private static class BigIntegerElement extends CommandElement implements ProbingElement, TokenClasses, ThreadAffinity, SampleInput {
 
-        protected InventorySlotElement(@Nullable Text key) {
+        protected BigIntegerElement(@Nullable Text key) {
             super(key);
         }
 
-        @Nullable
         @Override
-        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
-            String arg = args.next();
-            String[] split = arg.split("\\.");
-            ArgumentParseException ex = args.createError(Text.of("Invalid slot!"));
-            if (!split[0].equals("slot")) throw ex;
-            switch (split[1]) {
-                case "armor":
-                    switch (split[2]) {
-                        case "chest":
-
-                    }
-            }
-            return null;
+        public String sampleInput() {
+            return "10";
         }
 
         @Override
-        public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
-            return null;
+        public int tokenClasses() {
+            return DIGIT | DASH | PLUS;
         }
 
+        @Nullable
         @Override
-        public Text getUsage(CommandSource src) {
-            return null;
+        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+            String integerString = args.next();
+            if (!isInteger(integerString)) {
+                throw ParseFailure.of(args, () -> Text.of("Expected an integer, but input "+integerString+" was not"));
+            }
+            return new BigInteger(integerString);
         }
-    }
-
-    public static CommandElement uuid(Text key) {
-        return new UUIDElement(key);
-    }
-
-    private static class UUIDElement extends KeyElement {
 
-        protected UUIDElement(Text key) {
-            super(key);
+        @Override
+        public boolean matches(CommandSource source, CommandArgs args) {
+            Optional<String> arg = args.nextIfPresent();
+            return arg.isPresent() && isInteger(arg.get());
         }
 
-        @Nullable
-        @Override
-        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
-            try {
-                return UUID.fromString(args.next());
-            } catch (IllegalArgumentException ex) {
-                throw args.createError(Text.of("Invalid UUID!"));
+        /**
+         * Accepts exactly what {@link BigInteger#BigInteger(String)} does, so
+         * the constructor never throws.
+         */
+        static boolean isInteger(String s) {
+            int i = s.startsWith("-") || s.startsWith("+") ? 1 : 0;
+            if (i == s.length()) {
+                return false;
+            }
+            for (; i < s.length(); i++) {
+                if (Character.digit(s.charAt(i), 10) < 0) {
+                    return false;
+                }
             }
+            return true;
         }
 
+        @Override
+        public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
+            return ImmutableList.of();
+        }
     }
 
-    public static CommandElement text(Text key, boolean complex, boolean allRemaining) {
-        return new TextCommandElement(key, complex, allRemaining);
-    }
+    static class BoundedNumberElement extends CommandElement implements ProbingElement, TokenClasses, ThreadAffinity, SampleInput {
+
+        private static final long[] POWERS_OF_TEN = new long[19];
+        private static final String SUFFIXES = "kmbt";
 
-    private static class RemainingJoinedStringsCommandElement extends KeyElement {
+        static {
+            POWERS_OF_TEN[0] = 1;
+            for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+                POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+            }
+        }
 
-        private final boolean raw;
+        private final NumberBounds bounds;
+        private final boolean decimal;
+        // Integer elements produce Longs when the bounds allow it; these are
+        // the bounds rounded inwards to whole numbers
+        private final boolean longs;
+        private final long minLong;
+        private final long maxLong;
 
-        RemainingJoinedStringsCommandElement(Text key, boolean raw) {
+        protected BoundedNumberElement(@Nullable Text key, NumberBounds bounds, boolean decimal) {
             super(key);
-            this.raw = raw;
+            this.bounds = bounds;
+            this.decimal = decimal;
+            this.longs = !decimal && bounds.fitsInLong();
+            this.minLong = bounds.min == null ? Long.MIN_VALUE : clampToLong(bounds.min.setScale(0, RoundingMode.CEILING));
+            this.maxLong = bounds.max == null ? Long.MAX_VALUE : clampToLong(bounds.max.setScale(0, RoundingMode.FLOOR));
         }
 
         @Override
-        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
-            if (this.raw) {
-                args.next();
-                String ret = args.getRaw().substring(args.getRawPosition());
-                while (args.hasNext()) { // Consume remaining args
-                    args.next();
-                }
-                return ret;
-            } else {
-                final StringBuilder ret = new StringBuilder(args.next());
-                while (args.hasNext()) {
-                    ret.append(' ').append(args.next());
-                }
-                return ret.toString();
-            }
+        public String sampleInput() {
+            return "1";
         }
 
         @Override
-        public Text getUsage(CommandSource src) {
-            return Text.of(CommandMessageFormatting.LT_TEXT, getKey(), CommandMessageFormatting.ELLIPSIS_TEXT, CommandMessageFormatting.GT_TEXT);
+        public int tokenClasses() {
+            return bounds.suffixes ? DIGIT | DOT | DASH | PLUS | HEX_LETTER | LETTER : DIGIT | DOT | DASH | PLUS;
         }
-    }
-
-    private static class TextCommandElement extends KeyElement {
-
-        private final boolean complex;
-        private final boolean allRemaining;
-        private final RemainingJoinedStringsCommandElement joinedElement;
 
-        protected TextCommandElement(Text key, boolean complex, boolean allRemaining) {
-            super(key);
-            this.complex = complex;
-            this.allRemaining = allRemaining;
-            joinedElement = allRemaining ? new RemainingJoinedStringsCommandElement(key, false) : null;
+        private static long clampToLong(BigDecimal value) {
+            if (value.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) < 0) {
+                return Long.MIN_VALUE;
+            } else if (value.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0) {
+                return Long.MAX_VALUE;
+            }
+            return value.longValueExact();
         }
 
         @Nullable
         @Override
         protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
-            String arg = this.allRemaining ? (String) joinedElement.parseValue(source, args) : args.next();
-            if (this.complex) {
-                try {
-                    return TextSerializers.JSON.deserialize(arg);
-                } catch (TextParseException ex) {
-                    throw args.createError(Text.of("Invalid JSON text: ", ex.getMessage()));
-                }
-            } else {
-                return TextSerializers.FORMATTING_CODE.deserialize(arg);
+            String arg = args.next();
+            Object value = tryParse(arg);
+            if (value == null) {
+                // Only parse again for the reason if the message is read
+                throw ParseFailure.of(args, () -> ((Failure) parse(arg)).message(bounds, arg));
             }
+            return value;
         }
-    }
-
-    public static CommandElement dateTime(Text key) {
-        return new DateTimeElement(key, false);
-    }
-
-    public static CommandElement dateTimeOrNow(Text key) {
-        return new DateTimeElement(key, true);
-    }
-
-    private static class DateTimeElement extends CommandElement {
-
-        private final boolean returnNow;
 
-        protected DateTimeElement(Text key, boolean returnNow) {
-            super(key);
-            this.returnNow = returnNow;
+        @Override
+        public boolean matches(CommandSource source, CommandArgs args) {
+            Optional<String> arg = args.nextIfPresent();
+            return arg.isPresent() && tryParse(arg.get()) != null;
         }
 
         @Nullable
-        @Override
-        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
-            if (!args.hasNext() && this.returnNow) {
-                return LocalDateTime.now();
+        Object tryParse(String arg) {
+            Object result = parse(arg);
+            return result instanceof Failure ? null : result;
+        }
+
+        /**
+         * @return the number, or the {@link Failure} it was rejected for
+         */
+        Object parse(String arg) {
+            int length = arg.length();
+            int i = 0;
+            boolean negative = false;
+            if (i < length && (arg.charAt(i) == '-' || arg.charAt(i) == '+')) {
+                negative = arg.charAt(i) == '-';
+                i++;
+            }
+            int intStart = i;
+            while (i < length && isDigit(arg.charAt(i))) {
+                i++;
+            }
+            int intEnd = i;
+            int fracStart = i;
+            if (i < length && arg.charAt(i) == '.') {
+                fracStart = ++i;
+                while (i < length && isDigit(arg.charAt(i))) {
+                    i++;
+                }
+            }
+            int fracEnd = i;
+            if (intEnd == intStart && fracEnd == fracStart) {
+                return Failure.NOT_A_NUMBER;
+            }
+            int exponent = 0;
+            if (bounds.suffixes && i == length - 1) {
+                int suffix = SUFFIXES.indexOf(Character.toLowerCase(arg.charAt(i)));
+                if (suffix >= 0) {
+                    exponent = 3 * (suffix + 1);
+                    i++;
+                }
+            }
+            if (i != length) {
+                return Failure.NOT_A_NUMBER;
+            }
+            int fracDigits = fracEnd - fracStart;
+            int firstSignificant = intStart;
+            while (firstSignificant < intEnd && arg.charAt(firstSignificant) == '0') {
+                firstSignificant++;
+            }
+            int significantIntDigits = intEnd - firstSignificant;
+            if (significantIntDigits + fracDigits > bounds.maxDigits || significantIntDigits + exponent > bounds.maxDigits) {
+                return Failure.TOO_MANY_DIGITS;
+            }
+            int scale = fracDigits - exponent;
+            if (decimal) {
+                if (scale > bounds.maxScale) {
+                    return Failure.TOO_MANY_DECIMAL_PLACES;
+                }
+            } else {
+                for (int j = Math.max(fracStart + exponent, fracStart); j < fracEnd; j++) {
+                    if (arg.charAt(j) != '0') {
+                        return Failure.NOT_AN_INTEGER;
+                    }
+                }
+            }
+            long unscaled = 0;
+            boolean fast = significantIntDigits + fracDigits <= 18;
+            if (fast) {
+                for (int j = firstSignificant; j < fracEnd; j++) {
+                    if (j != intEnd || fracStart == intEnd) {
+                        unscaled = unscaled * 10 + (arg.charAt(j) - '0');
+                    }
+                }
+                if (!decimal) {
+                    if (scale > 0) {
+                        unscaled /= POWERS_OF_TEN[scale];
+                    } else if (scale < 0) {
+                        fast = -scale < POWERS_OF_TEN.length && unscaled <= Long.MAX_VALUE / POWERS_OF_TEN[-scale];
+                        unscaled = fast ? unscaled * POWERS_OF_TEN[-scale] : 0;
+                    }
+                }
+                if (negative) {
+                    unscaled = -unscaled;
+                }
+            }
+            if (!decimal && fast) {
+                if (unscaled < minLong || unscaled > maxLong) {
+                    return Failure.OUT_OF_RANGE;
+                }
+                return longs ? (Object) unscaled : BigInteger.valueOf(unscaled);
+            }
+            BigDecimal value;
+            if (fast) {
+                value = BigDecimal.valueOf(unscaled, scale);
+            } else {
+                StringBuilder digits = new StringBuilder(significantIntDigits + fracDigits + 1);
+                if (negative) {
+                    digits.append('-');
+                }
+                digits.append(arg, firstSignificant, intEnd).append(arg, fracStart, fracEnd);
+                value = new BigDecimal(new BigInteger(digits.toString()), scale);
+            }
+            if (scale < 0) {
+                value = value.setScale(0);
+            }
+            if (bounds.min != null && value.compareTo(bounds.min) < 0 || bounds.max != null && value.compareTo(bounds.max) > 0) {
+                return Failure.OUT_OF_RANGE;
+            }
+            if (decimal) {
+                return value;
+            }
+            BigInteger integer = value.toBigInteger();
+            return longs ? (Object) integer.longValue() : integer;
+        }
+
+        enum Failure {
+            NOT_A_NUMBER {
+                @Override
+                Text message(NumberBounds bounds, String arg) {
+                    return Text.of("Expected a number, but input " + arg + " was not");
+                }
+            },
+            NOT_AN_INTEGER {
+                @Override
+                Text message(NumberBounds bounds, String arg) {
+                    return Text.of("Expected an integer, but input " + arg + " was not");
+                }
+            },
+            TOO_MANY_DIGITS {
+                @Override
+                Text message(NumberBounds bounds, String arg) {
+                    return Text.of("Number " + arg + " has too many digits (maximum " + bounds.maxDigits + ")");
+                }
+            },
+            TOO_MANY_DECIMAL_PLACES {
+                @Override
+                Text message(NumberBounds bounds, String arg) {
+                    return Text.of("Number " + arg + " has too many decimal places (maximum " + bounds.maxScale + ")");
+                }
+            },
+            OUT_OF_RANGE {
+                @Override
+                Text message(NumberBounds bounds, String arg) {
+                    if (bounds.min != null && bounds.max != null) {
+                        return Text.of("Number " + arg + " must be between " + bounds.min.toPlainString() + " and " + bounds.max.toPlainString());
+                    } else if (bounds.min != null) {
+                        return Text.of("Number " + arg + " must be at least " + bounds.min.toPlainString());
+                    } else {
+                        return Text.of("Number " + arg + " must be at most " + bounds.max.toPlainString());
+                    }
+                }
+            };
+
+            abstract Text message(NumberBounds bounds, String arg);
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        @Override
+        public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
+            String prefix = args.nextIfPresent().orElse("");
+            ImmutableList.Builder<String> builder = ImmutableList.builder();
+            if (bounds.completionHints) {
+                if (bounds.min != null && bounds.min.toPlainString().startsWith(prefix)) {
+                    builder.add(bounds.min.toPlainString());
+                }
+                if (bounds.max != null && bounds.max.toPlainString().startsWith(prefix)) {
+                    builder.add(bounds.max.toPlainString());
+                }
+            }
+            if (bounds.suffixes && !prefix.isEmpty() && isDigit(prefix.charAt(prefix.length() - 1))) {
+                for (int i = 0; i < SUFFIXES.length(); i++) {
+                    builder.add(prefix + SUFFIXES.charAt(i));
+                }
+            }
+            return builder.build();
+        }
+    }
+
+    public static CommandElement inventorySlot(Text key) {
+        return new InventorySlotElement(key);
+    }
+
+    private static class InventorySlotElement extends CommandElement implements ProbingElement, TokenClasses, ThreadAffinity, SampleInput {
+
+        private static final Supplier<Text> INVALID_SLOT = ParseFailure.message("Invalid slot!");
+
+        protected InventorySlotElement(@Nullable Text key) {
+            super(key);
+        }
+
+        @Override
+        public String sampleInput() {
+            return "slot.hotbar.0";
+        }
+
+        @Override
+        public int tokenClasses() {
+            return DIGIT | HEX_LETTER | LETTER | DOT;
+        }
+
+        @Nullable
+        @Override
+        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+            InventorySlot slot = InventorySlot.byName(args.next());
+            if (slot == null) {
+                throw ParseFailure.of(args, INVALID_SLOT);
+            }
+            return slot;
+        }
+
+        @Override
+        public boolean matches(CommandSource source, CommandArgs args) {
+            Optional<String> arg = args.nextIfPresent();
+            return arg.isPresent() && InventorySlot.byName(arg.get()) != null;
+        }
+
+        @Override
+        public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
+            return InventorySlot.complete(args.nextIfPresent().orElse(""));
+        }
+    }
+
+    public static CommandElement uuid(Text key) {
+        return new UUIDElement(key);
+    }
+
+    private static class UUIDElement extends KeyElement implements ProbingElement, TokenClasses, ThreadAffinity, SampleInput {
+
+        private static final Supplier<Text> INVALID_UUID = ParseFailure.message("Invalid UUID!");
+        private static final int[] GROUP_DIGITS = {8, 4, 4, 4, 12};
+
+        protected UUIDElement(Text key) {
+            super(key);
+        }
+
+        @Override
+        public String sampleInput() {
+            return "00000000-0000-0000-0000-000000000000";
+        }
+
+        @Override
+        public int tokenClasses() {
+            // Character.digit also takes full-width hex letters
+            return DIGIT | HEX_LETTER | LETTER | DASH;
+        }
+
+        @Nullable
+        @Override
+        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+            UUID uuid = parse(args.next());
+            if (uuid == null) {
+                throw ParseFailure.of(args, INVALID_UUID);
+            }
+            return uuid;
+        }
+
+        @Override
+        public boolean matches(CommandSource source, CommandArgs args) {
+            Optional<String> arg = args.nextIfPresent();
+            return arg.isPresent() && parse(arg.get()) != null;
+        }
+
+        /**
+         * Reads the five dash-separated hex groups {@link UUID#fromString}
+         * accepts, without its exceptions.
+         */
+        @Nullable
+        static UUID parse(String s) {
+            long[] bits = parseBits(s, 0, s.length());
+            return bits == null ? null : new UUID(bits[0], bits[1]);
+        }
+
+        /**
+         * @return the most and least significant bits of the UUID between
+         *         {@code start} and {@code end}, or {@code null} if invalid
+         */
+        @Nullable
+        static long[] parseBits(CharSequence s, int start, int end) {
+            long[] groups = parseGroups(s, start, end);
+            return groups == null ? null : new long[] {groups[0] << 32 | groups[1] << 16 | groups[2], groups[3] << 48 | groups[4]};
+        }
+
+        @Nullable
+        private static long[] parseGroups(CharSequence s, int start, int end) {
+            long[] groups = new long[GROUP_DIGITS.length];
+            int i = start;
+            for (int group = 0; group < groups.length; group++) {
+                if (group > 0) {
+                    if (i == end || s.charAt(i) != '-') {
+                        return null;
+                    }
+                    i++;
+                }
+                int groupStart = i;
+                long value = 0;
+                while (i < end && s.charAt(i) != '-') {
+                    int digit = Character.digit(s.charAt(i), 16);
+                    if (digit < 0 || i - groupStart == GROUP_DIGITS[group]) {
+                        return null;
+                    }
+                    value = value << 4 | digit;
+                    i++;
+                }
+                if (i == groupStart) {
+                    return null;
+                }
+                groups[group] = value;
+            }
+            return i == end ? groups : null;
+        }
+    }
+
+    /**
+     * Creates an element taking either a UUID or the name of a player in
+     * {@code index}, and returning the {@link UUID}. Unknown names fail
+     * without a network lookup.
+     */
+    public static CommandElement uuidOrName(Text key, NameIndex index) {
+        return new ProfileElement(key, index, false, false);
+    }
+
+    /**
+     * Like {@link #uuidOrName}, but returns a {@link GameProfile}.
+     */
+    public static CommandElement profile(Text key, NameIndex index) {
+        return new ProfileElement(key, index, true, false);
+    }
+
+    /**
+     * Like {@link #profile}, but returns a
+     * {@code CompletableFuture<GameProfile>}. Names missing from
+     * {@code index} are looked up with the server's profile manager, and
+     * added to it once found.
+     */
+    public static CommandElement profileResolving(Text key, NameIndex index) {
+        return new ProfileElement(key, index, true, true);
+    }
+
+    private static class ProfileElement extends KeyElement implements ProbingElement, ThreadAffinity, SampleInput {
+
+        private static final Supplier<Text> UNKNOWN_PLAYER = ParseFailure.message("Unknown player name or invalid UUID!");
+        private static final int MAX_COMPLETIONS = 50;
+
+        private final NameIndex index;
+        private final boolean profile;
+        private final boolean resolve;
+
+        protected ProfileElement(Text key, NameIndex index, boolean profile, boolean resolve) {
+            super(key);
+            this.index = index;
+            this.profile = profile;
+            this.resolve = resolve;
+        }
+
+        @Override
+        public boolean requiresMainThread() {
+            // GameProfile.of and the profile manager go through the server
+            return profile || resolve;
+        }
+
+        @Nullable
+        @Override
+        public String sampleInput() {
+            // GameProfile.of needs the server
+            return profile ? null : "00000000-0000-0000-0000-000000000000";
+        }
+
+        @Nullable
+        @Override
+        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+            String arg = args.next();
+            UUID id = UUIDElement.parse(arg);
+            Object value;
+            if (id != null) {
+                value = profile ? GameProfile.of(id, index.getName(id).orElse(null)) : id;
+            } else {
+                NameIndex.Entry entry = index.lookup(arg);
+                if (entry == null) {
+                    if (resolve && NameIndex.isValidName(arg)) {
+                        return Sponge.getServer().getGameProfileManager().get(arg).thenApply(found -> {
+                            found.getName().ifPresent(name -> index.put(found.getUniqueId(), name));
+                            return found;
+                        });
+                    }
+                    throw ParseFailure.of(args, UNKNOWN_PLAYER);
+                }
+                value = profile ? GameProfile.of(entry.id, entry.name) : entry.id;
+            }
+            return resolve ? CompletableFuture.completedFuture(value) : value;
+        }
+
+        @Override
+        public boolean matches(CommandSource source, CommandArgs args) {
+            Optional<String> arg = args.nextIfPresent();
+            return arg.isPresent() && (UUIDElement.parse(arg.get()) != null
+                    || (resolve ? NameIndex.isValidName(arg.get()) : index.lookup(arg.get()) != null));
+        }
+
+        @Override
+        public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
+            return index.complete(args.nextIfPresent().orElse(""), MAX_COMPLETIONS);
+        }
+    }
+
+    public static CommandElement text(Text key, boolean complex, boolean allRemaining) {
+        return TextElements.text(key, complex, allRemaining, false, null);
+    }
+
+    public static CommandElement text(Text key, boolean complex, boolean allRemaining, boolean raw, @Nullable TextCache cache) {
+        return TextElements.text(key, complex, allRemaining, raw, cache);
+    }
+
+    /**
+     * Creates an element taking the rest of the raw input as a
+     * {@link RemainingInput}, without splitting or copying it.
+     */
+    public static CommandElement remainingInput(Text key) {
+        return new RemainingInputElement(key, Integer.MAX_VALUE);
+    }
+
+    public static CommandElement remainingInput(Text key, int maxLength) {
+        return new RemainingInputElement(key, maxLength);
+    }
+
+    private static class RemainingInputElement extends KeyElement implements ThreadAffinity, SampleInput {
+
+        private final int maxLength;
+
+        protected RemainingInputElement(Text key, int maxLength) {
+            super(key);
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public String sampleInput() {
+            return "a b";
+        }
+
+        @Override
+        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+            return RemainingInput.take(args, maxLength);
+        }
+
+        @Override
+        public Text getUsage(CommandSource src) {
+            return Text.of(CommandMessageFormatting.LT_TEXT, getKey(), CommandMessageFormatting.ELLIPSIS_TEXT, CommandMessageFormatting.GT_TEXT);
+        }
+    }
+
+    public static CommandElement dateTime(Text key) {
+        return DateTimeElements.dateTime(key, false, false);
+    }
+
+    public static CommandElement dateTimeOrNow(Text key) {
+        return DateTimeElements.dateTime(key, true, false);
+    }
+
+    public static CommandElement zonedDateTime(Text key) {
+        return DateTimeElements.dateTime(key, false, true);
+    }
+
+    public static CommandElement zonedDateTimeOrNow(Text key) {
+        return DateTimeElements.dateTime(key, true, true);
+    }
+
+    public static CommandElement duration(Text key) {
+        return new DurationElement(key, DurationParser.defaults());
+    }
+
+    public static CommandElement duration(Text key, DurationParser parser) {
+        return new DurationElement(key, parser);
+    }
+
+    private static class DurationElement extends CommandElement implements ProbingElement, TokenClasses, ThreadAffinity, SampleInput {
+
+        private static final Supplier<Text> INVALID_DURATION = ParseFailure.message("Invalid duration!");
+
+        private final DurationParser parser;
+
+        protected DurationElement(Text key, DurationParser parser) {
+            super(key);
+            this.parser = parser;
+        }
+
+        @Override
+        public String sampleInput() {
+            return "1h30m";
+        }
+
+        @Override
+        public int tokenClasses() {
+            return DIGIT | HEX_LETTER | LETTER | DOT | COMMA | DASH | PLUS;
+        }
+
+        @Nullable
+        @Override
+        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+            Duration duration = parser.parse(args.next());
+            if (duration == null) {
+                throw ParseFailure.of(args, INVALID_DURATION);
+            }
+            return duration;
+        }
+
+        @Override
+        public boolean matches(CommandSource source, CommandArgs args) {
+            Optional<String> arg = args.nextIfPresent();
+            return arg.isPresent() && parser.parse(arg.get()) != null;
+        }
+
+        @Override
+        public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
+            String arg = args.nextIfPresent().orElse("");
+            int unitStart = arg.length();
+            while (unitStart > 0 && Character.isLetter(arg.charAt(unitStart - 1))) {
+                unitStart--;
+            }
+            if (unitStart == 0 || !Character.isDigit(arg.charAt(unitStart - 1))) {
+                return ImmutableList.of();
+            }
+            String number = arg.substring(0, unitStart);
+            return parser.completeUnit(arg.substring(unitStart)).stream()
+                    .map(unit -> number + unit)
+                    .collect(GuavaCollectors.toImmutableList());
+        }
+    }
+
+    private static final int DEFAULT_MAX_LIST_SIZE = 100;
+
+    /**
+     * Creates an element taking one comma-separated argument, such as
+     * {@code a,b,c}, and parsing each value with {@code element}. Every
+     * value is put in the context under the element's key.
+     */
+    public static CommandElement listOf(CommandElement element) {
+        return new ListElement(element, DEFAULT_MAX_LIST_SIZE);
+    }
+
+    public static CommandElement listOf(CommandElement element, int maxSize) {
+        checkArgument(maxSize > 0, "maxSize must be positive");
+        return new ListElement(element, maxSize);
+    }
+
+    /**
+     * Creates an element taking comma-separated integers as a
+     * {@code long[]}.
+     */
+    public static CommandElement longList(Text key, int maxSize) {
+        checkArgument(maxSize > 0, "maxSize must be positive");
+        return new LongListElement(key, maxSize);
+    }
+
+    /**
+     * Creates an element taking comma-separated slot names, slot numbers and
+     * ranges of slot numbers like {@code 5-9}, as a {@link BitSet} of vanilla
+     * slot numbers. No more than {@code maxSize} slots are accepted.
+     */
+    public static CommandElement slotSet(Text key, int maxSize) {
+        checkArgument(maxSize > 0, "maxSize must be positive");
+        return new SlotSetElement(key, maxSize);
+    }
+
+    /**
+     * Creates an element taking comma-separated UUIDs as a {@code long[]}
+     * holding the most and then least significant bits of each.
+     */
+    public static CommandElement uuidList(Text key, int maxSize) {
+        checkArgument(maxSize > 0, "maxSize must be positive");
+        return new UUIDListElement(key, maxSize);
+    }
+
+    /**
+     * Creates an element taking comma-separated IP address literals as an
+     * {@link IpAddressList}.
+     */
+    public static CommandElement ipList(Text key, int maxSize) {
+        checkArgument(maxSize > 0, "maxSize must be positive");
+        return new IpListElement(key, maxSize);
+    }
+
+    private static class ListElement extends DelegatingElement {
+
+        private static final Supplier<Text> INVALID_VALUE = ParseFailure.message("Invalid list value!");
+
+        private final int maxSize;
+
+        protected ListElement(CommandElement element, int maxSize) {
+            super(element);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public void parse(CommandSource source, CommandArgs args, CommandContext context) throws ArgumentParseException {
+            String arg = args.next();
+            CommaListElement.checkSize(args, arg, maxSize);
+            String raw = args.getRaw();
+            int position = args.getRawPosition();
+            for (int start = 0, end; start <= arg.length(); start = end + 1) {
+                end = CommaListElement.valueEnd(args, arg, start);
+                CommandArgs valueArgs = new CommandArgs(raw, Collections.singletonList(new SingleArg(arg.substring(start, end), position + start, position + end)));
+                element.parse(source, valueArgs, context);
+                if (valueArgs.hasNext()) {
+                    valueArgs.next();
+                    throw ParseFailure.of(valueArgs, INVALID_VALUE);
+                }
+            }
+        }
+
+        @Override
+        public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
+            Optional<String> next = args.nextIfPresent();
+            String arg = next.orElse("");
+            // Later elements may follow, so the token need not end the input
+            int position = next.isPresent() ? args.getRawPosition() : args.getRaw().length();
+            int comma = arg.lastIndexOf(',');
+            String partial = arg.substring(comma + 1);
+            CommandArgs valueArgs = new CommandArgs(args.getRaw(), Collections.singletonList(
+                    new SingleArg(partial, position + comma + 1, position + arg.length())));
+            return CommaListElement.prefixed(arg.substring(0, comma + 1), element.complete(src, valueArgs, context));
+        }
+
+        @Override
+        public Text getUsage(CommandSource src) {
+            return Text.of(element.getUsage(src), ",", CommandMessageFormatting.ELLIPSIS_TEXT);
+        }
+
+        @Override
+        boolean probes() {
+            return false;
+        }
+
+        @Override
+        public int tokenClasses() {
+            return super.tokenClasses() | COMMA;
+        }
+    }
+
+    private abstract static class CommaListElement extends KeyElement implements TokenClasses, ThreadAffinity {
+
+        private static final Supplier<Text> EMPTY_VALUE = ParseFailure.message("Empty value in list!");
+
+        final int maxSize;
+
+        protected CommaListElement(Text key, int maxSize) {
+            super(key);
+            this.maxSize = maxSize;
+        }
+
+        @Nullable
+        @Override
+        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+            String arg = args.next();
+            return parseList(args, arg, checkSize(args, arg, maxSize));
+        }
+
+        /**
+         * Parses every value of {@code arg} in one pass, straight into the
+         * returned container.
+         */
+        abstract Object parseList(CommandArgs args, String arg, int count) throws ArgumentParseException;
+
+        List<String> completeValue(String partial) {
+            return ImmutableList.of();
+        }
+
+        @Override
+        public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
+            String arg = args.nextIfPresent().orElse("");
+            int comma = arg.lastIndexOf(',');
+            return prefixed(arg.substring(0, comma + 1), completeValue(arg.substring(comma + 1)));
+        }
+
+        @Override
+        public Text getUsage(CommandSource src) {
+            return Text.of(CommandMessageFormatting.LT_TEXT, getKey(), CommandMessageFormatting.GT_TEXT, ",", CommandMessageFormatting.ELLIPSIS_TEXT);
+        }
+
+        /**
+         * @return the number of values in {@code arg}, counted before any is
+         *         parsed so oversized lists are rejected up front
+         */
+        static int checkSize(CommandArgs args, String arg, int maxSize) throws ArgumentParseException {
+            int count = 1;
+            for (int i = 0; i < arg.length(); i++) {
+                if (arg.charAt(i) == ',' && ++count > maxSize) {
+                    throw tooMany(args, maxSize);
+                }
+            }
+            return count;
+        }
+
+        static ParseFailure tooMany(CommandArgs args, int maxSize) {
+            return ParseFailure.of(args, () -> Text.of("Too many values! (maximum " + maxSize + ")"));
+        }
+
+        /**
+         * @return the end of the value starting at {@code start}
+         */
+        static int valueEnd(CommandArgs args, String arg, int start) throws ArgumentParseException {
+            int end = arg.indexOf(',', start);
+            if (end < 0) {
+                end = arg.length();
+            }
+            if (end == start) {
+                throw ParseFailure.of(args, EMPTY_VALUE);
+            }
+            return end;
+        }
+
+        static List<String> prefixed(String head, List<String> suggestions) {
+            if (head.isEmpty()) {
+                return suggestions;
+            }
+            ImmutableList.Builder<String> builder = ImmutableList.builder();
+            for (String suggestion : suggestions) {
+                builder.add(head + suggestion);
+            }
+            return builder.build();
+        }
+    }
+
+    private static class LongListElement extends CommaListElement implements SampleInput {
+
+        protected LongListElement(Text key, int maxSize) {
+            super(key, maxSize);
+        }
+
+        @Override
+        public String sampleInput() {
+            return "1,2";
+        }
+
+        @Override
+        public int tokenClasses() {
+            return DIGIT | DASH | PLUS | COMMA;
+        }
+
+        @Override
+        Object parseList(CommandArgs args, String arg, int count) throws ArgumentParseException {
+            long[] values = new long[count];
+            for (int i = 0, start = 0, end; i < count; i++, start = end + 1) {
+                end = valueEnd(args, arg, start);
+                if (!parseLong(arg, start, end, values, i)) {
+                    String value = arg.substring(start, end);
+                    throw ParseFailure.of(args, () -> Text.of("Expected a number, but input " + value + " was not"));
+                }
             }
-            Object state = args.getState();
-            String date = args.next();
-            try {
-                return LocalDateTime.parse(date);
-            } catch (DateTimeParseException ex) {
-                try {
-                    return LocalDateTime.of(LocalDate.now(), LocalTime.parse(date));
-                } catch (DateTimeParseException ex2) {
-                    try {
-                        return LocalDateTime.of(LocalDate.parse(date), LocalTime.MIDNIGHT);
-                    } catch (DateTimeParseException ex3) {
-                        if (this.returnNow) {
-                            args.setState(state);
-                            return LocalDateTime.now();
-                        }
-                        throw args.createError(Text.of("Invalid date-time!"));
+            return values;
+        }
+
+        private static boolean parseLong(String s, int start, int end, long[] out, int index) {
+            // Accumulates negatively, like Long.parseLong, so MIN_VALUE fits
+            boolean negative = s.charAt(start) == '-';
+            int i = s.charAt(start) == '-' || s.charAt(start) == '+' ? start + 1 : start;
+            if (i == end) {
+                return false;
+            }
+            long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+            long result = 0;
+            for (; i < end; i++) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9' || result < limit / 10) {
+                    return false;
+                }
+                result *= 10;
+                if (result < limit + (c - '0')) {
+                    return false;
+                }
+                result -= c - '0';
+            }
+            out[index] = negative ? result : -result;
+            return true;
+        }
+    }
+
+    private static class SlotSetElement extends CommaListElement implements SampleInput {
+
+        protected SlotSetElement(Text key, int maxSize) {
+            super(key, maxSize);
+        }
+
+        @Override
+        public String sampleInput() {
+            return "slot.hotbar.0,1-2";
+        }
+
+        @Override
+        public int tokenClasses() {
+            return DIGIT | HEX_LETTER | LETTER | DOT | DASH | COMMA;
+        }
+
+        @Override
+        Object parseList(CommandArgs args, String arg, int count) throws ArgumentParseException {
+            BitSet slots = new BitSet();
+            for (int i = 0, start = 0, end; i < count; i++, start = end + 1) {
+                end = valueEnd(args, arg, start);
+                if (isDigit(arg.charAt(start))) {
+                    int dash = arg.indexOf('-', start);
+                    int from = parseSlotNumber(arg, start, dash < 0 || dash > end ? end : dash);
+                    int to = dash < 0 || dash > end ? from : parseSlotNumber(arg, dash + 1, end);
+                    if (!InventorySlot.isIdRange(from, to)) {
+                        throw ParseFailure.of(args, InventorySlotElement.INVALID_SLOT);
                     }
+                    slots.set(from, to + 1);
+                } else {
+                    InventorySlot slot = InventorySlot.byName(arg.substring(start, end));
+                    if (slot == null) {
+                        throw ParseFailure.of(args, InventorySlotElement.INVALID_SLOT);
+                    }
+                    slots.set(slot.getId());
+                }
+                if (slots.cardinality() > maxSize) {
+                    throw tooMany(args, maxSize);
+                }
+            }
+            return slots;
+        }
+
+        /**
+         * @return the slot number, or -1 if it is not one
+         */
+        private static int parseSlotNumber(String s, int start, int end) {
+            if (start == end || end - start > 4) {
+                return -1;
+            }
+            int value = 0;
+            for (int i = start; i < end; i++) {
+                if (!isDigit(s.charAt(i))) {
+                    return -1;
+                }
+                value = value * 10 + s.charAt(i) - '0';
+            }
+            return value;
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        @Override
+        List<String> completeValue(String partial) {
+            return InventorySlot.complete(partial);
+        }
+    }
+
+    private static class UUIDListElement extends CommaListElement implements SampleInput {
+
+        protected UUIDListElement(Text key, int maxSize) {
+            super(key, maxSize);
+        }
+
+        @Override
+        public String sampleInput() {
+            return "00000000-0000-0000-0000-000000000000,00000000-0000-0000-0000-000000000000";
+        }
+
+        @Override
+        public int tokenClasses() {
+            return DIGIT | HEX_LETTER | LETTER | DASH | COMMA;
+        }
+
+        @Override
+        Object parseList(CommandArgs args, String arg, int count) throws ArgumentParseException {
+            long[] bits = new long[count * 2];
+            for (int i = 0, start = 0, end; i < count; i++, start = end + 1) {
+                end = valueEnd(args, arg, start);
+                long[] uuid = UUIDElement.parseBits(arg, start, end);
+                if (uuid == null) {
+                    throw ParseFailure.of(args, UUIDElement.INVALID_UUID);
+                }
+                bits[i * 2] = uuid[0];
+                bits[i * 2 + 1] = uuid[1];
+            }
+            return bits;
+        }
+    }
+
+    private static class IpListElement extends CommaListElement implements SampleInput {
+
+        protected IpListElement(Text key, int maxSize) {
+            super(key, maxSize);
+        }
+
+        @Override
+        public String sampleInput() {
+            return "127.0.0.1,::1";
+        }
+
+        @Override
+        public int tokenClasses() {
+            return DIGIT | HEX_LETTER | DOT | COLON | BRACKET | COMMA;
+        }
+
+        @Override
+        Object parseList(CommandArgs args, String arg, int count) throws ArgumentParseException {
+            int[] v4 = new int[count];
+            byte[] v6 = new byte[count * 16];
+            int v4Count = 0;
+            int v6Count = 0;
+            for (int i = 0, start = 0, end; i < count; i++, start = end + 1) {
+                end = valueEnd(args, arg, start);
+                byte[] address = IpAddresses.parse(arg, start, end);
+                if (address == null) {
+                    throw ParseFailure.of(args, IpElement.INVALID_ADDRESS);
                 }
+                if (address.length == 4) {
+                    v4[v4Count++] = (address[0] & 0xFF) << 24 | (address[1] & 0xFF) << 16 | (address[2] & 0xFF) << 8 | address[3] & 0xFF;
+                } else {
+                    System.arraycopy(address, 0, v6, v6Count++ * 16, 16);
+                }
+            }
+            return new IpAddressList(Arrays.copyOf(v4, v4Count), Arrays.copyOf(v6, v6Count * 16));
+        }
+    }
+
+    /**
+     * Wraps any element, including Sponge's own, so its parse, complete and
+     * usage calls are recorded in {@link ElementMetrics}.
+     */
+    public static CommandElement instrumented(CommandElement element) {
+        if (element instanceof InstrumentedElement) {
+            return element;
+        }
+        return new InstrumentedElement(element);
+    }
+
+    private static class InstrumentedElement extends DelegatingElement {
+
+        private final ElementMetrics.Recorder recorder;
+
+        InstrumentedElement(CommandElement element) {
+            super(element);
+            this.recorder = ElementMetrics.recorder(element);
+        }
+
+        // Cold warm-up iterations would skew the metrics of real commands
+        private static boolean isRecording() {
+            return ElementMetrics.isEnabled() && !isWarmingUp();
+        }
+
+        @Override
+        public void parse(CommandSource source, CommandArgs args, CommandContext context) throws ArgumentParseException {
+            if (!isRecording()) {
+                element.parse(source, args, context);
+                return;
+            }
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                element.parse(source, args, context);
+                failed = false;
+            } finally {
+                recorder.record(ElementMetrics.Operation.PARSE, System.nanoTime() - start, failed);
             }
         }
 
         @Override
         public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
-            String date = LocalDateTime.now().withNano(0).toString();
-            if (date.startsWith(args.nextIfPresent().orElse(""))) {
-                return ImmutableList.of(date);
-            } else {
-                return ImmutableList.of();
+            if (!isRecording()) {
+                return element.complete(src, args, context);
+            }
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                List<String> completions = element.complete(src, args, context);
+                failed = false;
+                return completions;
+            } finally {
+                recorder.record(ElementMetrics.Operation.COMPLETE, System.nanoTime() - start, failed);
             }
         }
 
         @Override
         public Text getUsage(CommandSource src) {
-            if (!this.returnNow) {
-                return super.getUsage(src);
-            } else {
-                return Text.of("[", this.getKey(), "]");
+            if (!isRecording()) {
+                return element.getUsage(src);
+            }
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Text usage = element.getUsage(src);
+                failed = false;
+                return usage;
+            } finally {
+                recorder.record(ElementMetrics.Operation.USAGE, System.nanoTime() - start, failed);
             }
         }
     }
 
-    public static CommandElement duration(Text key) {
-        return new DurationElement(key);
+    /**
+     * Parses {@code element} into {@code context} if it accepts the upcoming
+     * arguments. A {@link ProbingElement} is probed first, so rejected input
+     * never builds an exception.
+     *
+     * @return whether the element parsed; if not, {@code args} is left
+     *         where it was
+     */
+    public static boolean tryParse(CommandElement element, CommandSource source, CommandArgs args, CommandContext context) {
+        Object state = args.getState();
+        if (isProbing(element)) {
+            boolean matches = ((ProbingElement) element).matches(source, args);
+            args.setState(state);
+            if (!matches) {
+                return false;
+            }
+        }
+        try {
+            element.parse(source, args, context);
+            return true;
+        } catch (ArgumentParseException ex) {
+            args.setState(state);
+            return false;
+        }
     }
 
-    private static class DurationElement extends KeyElement {
+    // Wrappers are always ProbingElements, but only worth probing when what they wrap is
+    private static boolean isProbing(CommandElement element) {
+        return element instanceof DelegatingElement ? ((DelegatingElement) element).probes() : element instanceof ProbingElement;
+    }
 
-        protected DurationElement(Text key) {
-            super(key);
+    /**
+     * Like {@link GenericArguments#firstParsing}, but probes each
+     * {@link ProbingElement} before parsing it.
+     */
+    public static CommandElement firstParsing(CommandElement... elements) {
+        return new FirstParsingElement(ImmutableList.copyOf(elements));
+    }
+
+    /**
+     * Like {@link GenericArguments#optionalWeak(CommandElement)}, but probes
+     * a {@link ProbingElement} before parsing it. Strict optionals never need
+     * to recover from a failed parse, so Sponge's own serve as well there.
+     */
+    public static CommandElement optionalWeak(CommandElement element) {
+        return new OptionalWeakElement(element, null);
+    }
+
+    public static CommandElement optionalWeak(CommandElement element, @Nullable Object value) {
+        return new OptionalWeakElement(element, value);
+    }
+
+    private static class FirstParsingElement extends CommandElement implements ProbingElement, ThreadAffinity, SampleInput {
+
+        private final List<CommandElement> elements;
+
+        FirstParsingElement(List<CommandElement> elements) {
+            super(null);
+            this.elements = elements;
+        }
+
+        @Nullable
+        @Override
+        public String sampleInput() {
+            for (CommandElement element : elements) {
+                String sample = SampleInput.of(element);
+                if (sample != null) {
+                    return sample;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean requiresMainThread() {
+            return elements.stream().anyMatch(ThreadAffinity::requiresMainThread);
+        }
+
+        @Override
+        public void parse(CommandSource source, CommandArgs args, CommandContext context) throws ArgumentParseException {
+            for (CommandElement element : elements) {
+                if (tryParse(element, source, args, context)) {
+                    return;
+                }
+            }
+            if (!elements.isEmpty()) {
+                // Nothing matched; parse the last element for real to report why
+                elements.get(elements.size() - 1).parse(source, args, context);
+            }
         }
 
         @Nullable
         @Override
         protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
-            String s = args.next().toUpperCase();
-            if (!s.contains("T")) {
-                if (s.contains("D")) {
-                    if (s.contains("H") || s.contains("M") || s.contains("S")) {
-                        s = s.replace("D", "DT");
+            return null;
+        }
+
+        @Override
+        public boolean matches(CommandSource source, CommandArgs args) {
+            CommandContext scratch = null;
+            for (CommandElement element : elements) {
+                Object state = args.getState();
+                if (isProbing(element)) {
+                    if (((ProbingElement) element).matches(source, args)) {
+                        return true;
                     }
+                    args.setState(state);
                 } else {
-                    s = "T" + s;
+                    if (scratch == null) {
+                        scratch = new CommandContext();
+                    }
+                    if (tryParse(element, source, args, scratch)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
+            ImmutableList.Builder<String> builder = ImmutableList.builder();
+            Object state = args.getState();
+            for (CommandElement element : elements) {
+                builder.addAll(element.complete(src, args, context));
+                args.setState(state);
+            }
+            return builder.build();
+        }
+
+        @Override
+        public Text getUsage(CommandSource src) {
+            Text.Builder builder = Text.builder();
+            for (Iterator<CommandElement> it = elements.iterator(); it.hasNext();) {
+                builder.append(it.next().getUsage(src));
+                if (it.hasNext()) {
+                    builder.append(CommandMessageFormatting.PIPE_TEXT);
+                }
+            }
+            return builder.build();
+        }
+    }
+
+    private static class OptionalWeakElement extends CommandElement implements ProbingElement, ThreadAffinity, SampleInput {
+
+        private final CommandElement element;
+        @Nullable private final Object value;
+
+        OptionalWeakElement(CommandElement element, @Nullable Object value) {
+            super(null);
+            this.element = element;
+            this.value = value;
+        }
+
+        @Nullable
+        @Override
+        public String sampleInput() {
+            return SampleInput.of(element);
+        }
+
+        @Override
+        public boolean requiresMainThread() {
+            return ThreadAffinity.requiresMainThread(element);
+        }
+
+        @Override
+        public void parse(CommandSource source, CommandArgs args, CommandContext context) throws ArgumentParseException {
+            if (args.hasNext() && tryParse(element, source, args, context)) {
+                return;
+            }
+            String key = element.getUntranslatedKey();
+            if (value != null && key != null) {
+                context.putArg(key, value);
+            }
+        }
+
+        @Nullable
+        @Override
+        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+            return null;
+        }
+
+        @Override
+        public boolean matches(CommandSource source, CommandArgs args) {
+            if (args.hasNext()) {
+                Object state = args.getState();
+                boolean matches = isProbing(element)
+                        ? ((ProbingElement) element).matches(source, args)
+                        : tryParse(element, source, args, new CommandContext());
+                if (!matches) {
+                    args.setState(state);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
+            return element.complete(src, args, context);
+        }
+
+        @Override
+        public Text getUsage(CommandSource src) {
+            return Text.of("[", element.getUsage(src), "]");
+        }
+    }
+
+    /**
+     * Wraps an element so its completions are computed by {@code completer}
+     * off the calling thread.
+     */
+    public static CommandElement asyncCompletion(CommandElement element, AsyncCompleter completer) {
+        return new AsyncCompletionElement(element, completer);
+    }
+
+    private static class AsyncCompletionElement extends DelegatingElement {
+
+        private final AsyncCompleter completer;
+
+        AsyncCompletionElement(CommandElement element, AsyncCompleter completer) {
+            super(element);
+            this.completer = completer;
+        }
+
+        @Override
+        public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
+            return isWarmingUp() ? element.complete(src, args, context) : completer.complete(element, src, args);
+        }
+    }
+
+    /**
+     * Stops the threads that {@link HostResolver}, {@link ResourcePackCache}
+     * and {@link AsyncCompleter} start when not given an executor, such as
+     * when a plugin is disabled or reloaded. Idle threads also stop on their
+     * own after a minute.
+     */
+    public static void shutdownExecutor() {
+        LazyExecutor.shutdownAll();
+    }
+
+    private static final int DEFAULT_WARM_UP_ITERATIONS = 1000;
+    // Set on the thread running warmUp, so elements leave their caches alone
+    private static final ThreadLocal<Boolean> WARMING_UP = new ThreadLocal<>();
+
+    /**
+     * Parses and completes sample input with each element on
+     * {@code executor}, so that their classes, their dependencies and the
+     * compiled code are ready before the first real command. Elements that
+     * need the main thread, or have no input that is safe to try, are
+     * skipped, as is the rest of an element's warm-up once it throws. No
+     * caches, recent inputs or metrics are filled in along the way.
+     */
+    public static CompletableFuture<Void> warmUp(CommandSource source, Executor executor, CommandElement... elements) {
+        return warmUp(source, executor, DEFAULT_WARM_UP_ITERATIONS, elements);
+    }
+
+    public static CompletableFuture<Void> warmUp(CommandSource source, Executor executor, int iterations, CommandElement... elements) {
+        List<CommandElement> toWarm = ImmutableList.copyOf(elements);
+        return CompletableFuture.runAsync(() -> {
+            WARMING_UP.set(Boolean.TRUE);
+            try {
+                for (CommandElement element : toWarm) {
+                    try {
+                        warmUp(source, iterations, element);
+                    } catch (RuntimeException ex) {
+                        // Only a missed optimization, so carry on with the rest
+                    }
                 }
+            } finally {
+                WARMING_UP.remove();
+            }
+        }, executor);
+    }
+
+    private static void warmUp(CommandSource source, int iterations, CommandElement element) {
+        String sample = SampleInput.of(element);
+        if (sample == null || ThreadAffinity.requiresMainThread(element)) {
+            return;
+        }
+        List<SingleArg> tokens = new ArrayList<>();
+        for (int start = 0, end; start < sample.length(); start = end + 1) {
+            end = sample.indexOf(' ', start);
+            if (end < 0) {
+                end = sample.length();
+            }
+            tokens.add(new SingleArg(sample.substring(start, end), start, end));
+        }
+        for (int i = 0; i < iterations; i++) {
+            tryParse(element, source, new CommandArgs(sample, tokens), new CommandContext());
+            element.complete(source, new CommandArgs(sample, tokens), new CommandContext());
+        }
+    }
+
+    static boolean isWarmingUp() {
+        return WARMING_UP.get() != null;
+    }
+
+    private abstract static class DelegatingElement extends CommandElement implements ProbingElement, TokenClasses, ThreadAffinity, SampleInput {
+
+        final CommandElement element;
+
+        DelegatingElement(CommandElement element) {
+            super(element.getKey());
+            this.element = element;
+        }
+
+        @Nullable
+        @Override
+        public String sampleInput() {
+            return SampleInput.of(element);
+        }
+
+        @Override
+        public void parse(CommandSource source, CommandArgs args, CommandContext context) throws ArgumentParseException {
+            element.parse(source, args, context);
+        }
+
+        @Nullable
+        @Override
+        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+            // parseValue is not reachable on the wrapped element, so go through parse
+            String key = getUntranslatedKey();
+            CommandContext context = new CommandContext();
+            parse(source, args, context);
+            if (key == null) {
+                return null;
             }
-            if (!s.startsWith("P")) {
-                s = "P" + s;
+            Collection<Object> values = context.getAll(key);
+            return values.size() == 1 ? values.iterator().next() : values.isEmpty() ? null : values;
+        }
+
+        @Override
+        public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
+            return element.complete(src, args, context);
+        }
+
+        @Override
+        public Text getUsage(CommandSource src) {
+            return element.getUsage(src);
+        }
+
+        @Override
+        public boolean requiresMainThread() {
+            return ThreadAffinity.requiresMainThread(element);
+        }
+
+        /**
+         * @return whether {@link #matches} is cheaper than parsing, which is
+         *         only the case when the wrapped element can be probed
+         */
+        boolean probes() {
+            return isProbing(element);
+        }
+
+        @Override
+        public boolean matches(CommandSource source, CommandArgs args) {
+            if (probes()) {
+                return ((ProbingElement) element).matches(source, args);
             }
             try {
-                return Duration.parse(s);
-            } catch (DateTimeParseException ex) {
-                throw args.createError(Text.of("Invalid duration!"));
+                parse(source, args, new CommandContext());
+                return true;
+            } catch (ArgumentParseException ex) {
+                return false;
             }
         }
+
+        @Override
+        public int tokenClasses() {
+            return element instanceof TokenClasses ? ((TokenClasses) element).tokenClasses() : ANY;
+        }
     }
 
-    private abstract static class KeyElement extends CommandElement {
+    abstract static class KeyElement extends CommandElement {
 
-        private KeyElement(Text key) {
+        KeyElement(Text key) {
             super(key);
         }
 
@@ -0,0 +1,234 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.collect.ImmutableList;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.event.network.ClientConnectionEvent;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A concurrent, case-insensitive index from player names to UUIDs, for
+ * {@link MoreArguments#uuidOrName} and {@link MoreArguments#profile}. It is
+ * searchable by prefix, kept current from join events, and saved as a
+ * fixed-width binary snapshot so startup never rescans user data. Lookups
+ * never touch the network.
+ */
+public final class NameIndex {
+
+    static final int MAX_NAME_LENGTH = 16;
+
+    private static final int MAGIC = 0x4D414E49;
+    private static final int VERSION = 1;
+    // magic, version, record count
+    private static final int HEADER_SIZE = 12;
+    // UUID, name length, name padded to MAX_NAME_LENGTH chars
+    private static final int RECORD_SIZE = 16 + 1 + MAX_NAME_LENGTH * 2;
+
+    private final ConcurrentNavigableMap<String, Entry> byName = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<UUID, String> byId = new ConcurrentHashMap<>();
+
+    private NameIndex() {}
+
+    public static NameIndex create() {
+        return new NameIndex();
+    }
+
+    /**
+     * Reads a snapshot written by {@link #save}.
+     *
+     * @return the index, or an empty one if the file does not exist yet
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static NameIndex load(Path file) throws IOException {
+        NameIndex index = new NameIndex();
+        if (!Files.exists(file)) {
+            return index;
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Name index snapshot is too large: " + file);
+            }
+            buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading
+            }
+            buffer.flip();
+        }
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not a name index snapshot: " + file);
+        }
+        int count = buffer.getInt();
+        if (count < 0 || (long) count * RECORD_SIZE > buffer.remaining()) {
+            throw new IOException("Truncated name index snapshot: " + file);
+        }
+        char[] name = new char[MAX_NAME_LENGTH];
+        for (int i = 0; i < count; i++) {
+            UUID id = new UUID(buffer.getLong(), buffer.getLong());
+            int length = buffer.get() & 0xFF;
+            if (length == 0 || length > MAX_NAME_LENGTH) {
+                throw new IOException("Corrupt name index snapshot: " + file);
+            }
+            for (int j = 0; j < MAX_NAME_LENGTH; j++) {
+                name[j] = buffer.getChar();
+            }
+            index.put(id, new String(name, 0, length));
+        }
+        return index;
+    }
+
+    /**
+     * Writes a snapshot, replacing the file only once it is complete.
+     */
+    public void save(Path file) throws IOException {
+        List<Entry> entries = new ArrayList<>(this.byName.values());
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + entries.size() * RECORD_SIZE);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(entries.size());
+        for (Entry entry : entries) {
+            buffer.putLong(entry.id.getMostSignificantBits()).putLong(entry.id.getLeastSignificantBits());
+            buffer.put((byte) entry.name.length());
+            for (int i = 0; i < MAX_NAME_LENGTH; i++) {
+                buffer.putChar(i < entry.name.length() ? entry.name.charAt(i) : 0);
+            }
+        }
+        buffer.flip();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Records every joining player under their current name.
+     */
+    public void listen(Object plugin) {
+        Sponge.getEventManager().registerListener(plugin, ClientConnectionEvent.Join.class, event -> {
+            Player player = event.getTargetEntity();
+            put(player.getUniqueId(), player.getName());
+        });
+    }
+
+    /**
+     * Records {@code name} for {@code id}, dropping the player's previous
+     * name. A name last held by someone else now refers to {@code id}, and
+     * that player has no known name until they are recorded again.
+     */
+    public void put(UUID id, String name) {
+        checkNotNull(id, "id");
+        checkArgument(isValidName(name), "Invalid player name: %s", name);
+        String previous = this.byId.put(id, name);
+        if (previous != null && !previous.equalsIgnoreCase(name)) {
+            this.byName.remove(previous.toLowerCase(Locale.ROOT), new Entry(id, previous));
+        }
+        Entry displaced = this.byName.put(name.toLowerCase(Locale.ROOT), new Entry(id, name));
+        if (displaced != null && !displaced.id.equals(id)) {
+            // That player's name is out of date, so forget it rather than
+            // hand it out for them
+            this.byId.remove(displaced.id, displaced.name);
+        }
+    }
+
+    @Nullable
+    public UUID get(String name) {
+        Entry entry = lookup(name);
+        return entry == null ? null : entry.id;
+    }
+
+    public Optional<String> getName(UUID id) {
+        return Optional.ofNullable(this.byId.get(id));
+    }
+
+    /**
+     * @return up to {@code limit} names starting with {@code prefix},
+     *         ignoring case, in alphabetical order
+     */
+    public List<String> complete(String prefix, int limit) {
+        String lower = prefix.toLowerCase(Locale.ROOT);
+        ImmutableList.Builder<String> builder = ImmutableList.builder();
+        int count = 0;
+        for (Map.Entry<String, Entry> entry : this.byName.tailMap(lower).entrySet()) {
+            if (count == limit || !entry.getKey().startsWith(lower)) {
+                break;
+            }
+            builder.add(entry.getValue().name);
+            count++;
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return this.byName.size();
+    }
+
+    @Nullable
+    Entry lookup(String name) {
+        return isValidName(name) ? this.byName.get(name.toLowerCase(Locale.ROOT)) : null;
+    }
+
+    static boolean isValidName(@Nullable String name) {
+        if (name == null || name.isEmpty() || name.length() > MAX_NAME_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.isWhitespace(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static final class Entry {
+
+        final UUID id;
+        final String name;
+
+        Entry(UUID id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry other = (Entry) o;
+            return this.id.equals(other.id) && this.name.equals(other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.id.hashCode() * 31 + this.name.hashCode();
+        }
+    }
+}
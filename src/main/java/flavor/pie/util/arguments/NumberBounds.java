@@ -0,0 +1,142 @@
+package flavor.pie.util.arguments;
+
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Limits for {@link MoreArguments#boundedInteger} and
+ * {@link MoreArguments#boundedDecimal}. Digit and scale limits are checked
+ * while scanning, before any {@link java.math.BigInteger} or
+ * {@link BigDecimal} is constructed.
+ */
+public final class NumberBounds {
+
+    private static final BigDecimal LONG_MIN = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final BigDecimal LONG_MAX = BigDecimal.valueOf(Long.MAX_VALUE);
+
+    final int maxDigits;
+    final int maxScale;
+    @Nullable final BigDecimal min;
+    @Nullable final BigDecimal max;
+    final boolean suffixes;
+    final boolean completionHints;
+
+    private NumberBounds(Builder builder) {
+        this.maxDigits = builder.maxDigits;
+        this.maxScale = builder.maxScale;
+        this.min = builder.min;
+        this.max = builder.max;
+        this.suffixes = builder.suffixes;
+        this.completionHints = builder.completionHints;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Whether every integer within these bounds fits in a {@code long}, in
+     * which case integer elements produce {@link Long}s rather than
+     * {@link java.math.BigInteger}s.
+     */
+    public boolean fitsInLong() {
+        return this.min != null && this.max != null && this.min.compareTo(LONG_MIN) >= 0 && this.max.compareTo(LONG_MAX) <= 0
+                || this.maxDigits <= 18;
+    }
+
+    public int getMaxDigits() {
+        return this.maxDigits;
+    }
+
+    public int getMaxScale() {
+        return this.maxScale;
+    }
+
+    @Nullable
+    public BigDecimal getMin() {
+        return this.min;
+    }
+
+    @Nullable
+    public BigDecimal getMax() {
+        return this.max;
+    }
+
+    public static final class Builder {
+
+        private int maxDigits = 30;
+        private int maxScale = 10;
+        @Nullable private BigDecimal min;
+        @Nullable private BigDecimal max;
+        private boolean suffixes;
+        private boolean completionHints;
+
+        private Builder() {}
+
+        /**
+         * Sets the most digits the input, and the value it denotes, may have.
+         */
+        public Builder maxDigits(int maxDigits) {
+            checkArgument(maxDigits > 0, "maxDigits must be positive");
+            this.maxDigits = maxDigits;
+            return this;
+        }
+
+        /**
+         * Sets the most digits allowed after the decimal point. Ignored by
+         * integer elements.
+         */
+        public Builder maxScale(int maxScale) {
+            checkArgument(maxScale >= 0, "maxScale must not be negative");
+            this.maxScale = maxScale;
+            return this;
+        }
+
+        public Builder min(long min) {
+            return min(BigDecimal.valueOf(min));
+        }
+
+        public Builder min(@Nullable BigDecimal min) {
+            this.min = min;
+            return this;
+        }
+
+        public Builder max(long max) {
+            return max(BigDecimal.valueOf(max));
+        }
+
+        public Builder max(@Nullable BigDecimal max) {
+            this.max = max;
+            return this;
+        }
+
+        public Builder range(long min, long max) {
+            return min(min).max(max);
+        }
+
+        /**
+         * Accepts the magnitude suffixes k, m, b and t (case-insensitive), as
+         * in {@code 1.5k} or {@code 2M}.
+         */
+        public Builder suffixes(boolean suffixes) {
+            this.suffixes = suffixes;
+            return this;
+        }
+
+        /**
+         * Offers the minimum and maximum as completions.
+         */
+        public Builder completionHints(boolean completionHints) {
+            this.completionHints = completionHints;
+            return this;
+        }
+
+        public NumberBounds build() {
+            checkState(this.min == null || this.max == null || this.min.compareTo(this.max) <= 0, "min must not exceed max");
+            return new NumberBounds(this);
+        }
+    }
+}
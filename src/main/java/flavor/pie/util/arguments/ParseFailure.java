@@ -0,0 +1,70 @@
+package flavor.pie.util.arguments;
+
+import org.spongepowered.api.command.args.ArgumentParseException;
+import org.spongepowered.api.command.args.CommandArgs;
+import org.spongepowered.api.text.Text;
+
+import javax.annotation.Nullable;
+import java.util.function.Supplier;
+
+/**
+ * An {@link ArgumentParseException} without a stack trace, whose message is
+ * only built if something reads it. Combinators that try several elements
+ * usually discard the rejections unread.
+ */
+final class ParseFailure extends ArgumentParseException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Supplier<Text> message;
+    @Nullable private transient volatile Text text;
+
+    ParseFailure(Supplier<Text> message, String source, int position) {
+        super(null, source, position);
+        this.message = message;
+    }
+
+    /**
+     * Fails at the argument most recently read from {@code args}, like
+     * {@link CommandArgs#createError(Text)}.
+     */
+    static ParseFailure of(CommandArgs args, Supplier<Text> message) {
+        return new ParseFailure(message, args.getRaw(), args.getRawPosition());
+    }
+
+    /**
+     * @return a message built on first use and shared afterwards
+     */
+    static Supplier<Text> message(String message) {
+        return new Supplier<Text>() {
+
+            @Nullable private volatile Text text;
+
+            @Override
+            public Text get() {
+                Text text = this.text;
+                if (text == null) {
+                    text = Text.of(message);
+                    this.text = text;
+                }
+                return text;
+            }
+        };
+    }
+
+    @Override
+    public Text getText() {
+        Text text = this.text;
+        if (text == null) {
+            text = this.message.get();
+            this.text = text;
+        }
+        String source = getSourceString();
+        return source == null || source.isEmpty() ? text : Text.of(text, '\n', getAnnotatedPosition());
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,21 @@
+package flavor.pie.util.arguments;
+
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.CommandArgs;
+
+/**
+ * An element that can tell whether it would accept the upcoming arguments
+ * without building a value or throwing. {@link MoreArguments#firstParsing}
+ * and {@link MoreArguments#optionalWeak} probe these before parsing, so only
+ * the branch that matches is parsed for real.
+ */
+public interface ProbingElement {
+
+    /**
+     * Reads the arguments this element would parse. Callers restore
+     * {@link CommandArgs#getState()} afterwards if they need to.
+     *
+     * @return whether parsing from the same position would succeed
+     */
+    boolean matches(CommandSource source, CommandArgs args);
+}
@@ -0,0 +1,104 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.io.CharSource;
+import org.spongepowered.api.command.args.ArgumentParseException;
+import org.spongepowered.api.command.args.CommandArgs;
+import org.spongepowered.api.text.Text;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+/**
+ * The rest of a command's raw input, as returned by
+ * {@link MoreArguments#remainingInput}. It is a view of the original string,
+ * so nothing is copied until {@link #toString} is called, and can be read
+ * through a {@link Reader} by streaming parsers.
+ */
+public final class RemainingInput implements CharSequence {
+
+    private final String raw;
+    private final int start;
+    private final int end;
+    @Nullable private String string;
+
+    private RemainingInput(String raw, int start, int end) {
+        this.raw = raw;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Takes everything from the next argument to the end of the input,
+     * leaving {@code args} past its last argument.
+     *
+     * @throws ArgumentParseException if there are no arguments left, or more
+     *         than {@code maxLength} characters
+     */
+    static RemainingInput take(CommandArgs args, int maxLength) throws ArgumentParseException {
+        return take(args, maxLength, () -> Text.of("Input is too long! (maximum " + maxLength + " characters)"));
+    }
+
+    static RemainingInput take(CommandArgs args, int maxLength, Supplier<Text> tooLong) throws ArgumentParseException {
+        args.next();
+        String raw = args.getRaw();
+        int start = args.getRawPosition();
+        if (raw.length() - start > maxLength) {
+            throw ParseFailure.of(args, tooLong);
+        }
+        skipRemaining(args);
+        return new RemainingInput(raw, start, raw.length());
+    }
+
+    private static void skipRemaining(CommandArgs args) throws ArgumentParseException {
+        // The state is the index of the current argument, so jump straight to
+        // the last one rather than reading every argument in between
+        if (args.getState() instanceof Integer) {
+            args.setState(args.getAll().size() - 1);
+        }
+        // Only does anything for a state that means something else
+        while (args.hasNext()) {
+            args.next();
+        }
+    }
+
+    public Reader reader() {
+        try {
+            return CharSource.wrap(this).openStream();
+        } catch (IOException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+
+    @Override
+    public int length() {
+        return this.end - this.start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        return this.raw.charAt(this.start + index);
+    }
+
+    @Override
+    public RemainingInput subSequence(int start, int end) {
+        checkPositionIndexes(start, end, length());
+        return new RemainingInput(this.raw, this.start + start, this.start + end);
+    }
+
+    @Override
+    public String toString() {
+        String string = this.string;
+        if (string == null) {
+            string = this.raw.substring(this.start, this.end);
+            this.string = string;
+        }
+        return string;
+    }
+}
@@ -0,0 +1,151 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import org.spongepowered.api.resourcepack.ResourcePack;
+import org.spongepowered.api.resourcepack.ResourcePacks;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Creates {@link ResourcePack}s off the calling thread and remembers them by
+ * normalized URI, so asking for the same pack again costs a map lookup.
+ * Failed lookups are not remembered.
+ */
+public final class ResourcePackCache {
+
+    private final Cache<String, CompletableFuture<ResourcePack>> cache;
+    private final Executor executor;
+
+    private ResourcePackCache(Builder builder) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(builder.maximumSize)
+                .expireAfterWrite(builder.ttl, builder.ttlUnit)
+                .build();
+        this.executor = builder.executor != null ? builder.executor : LazyExecutor.RESOURCE_PACKS;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public CompletableFuture<ResourcePack> get(URI uri) {
+        String key = normalize(uri);
+        CompletableFuture<ResourcePack> future = this.cache.getIfPresent(key);
+        if (future != null) {
+            return future;
+        }
+        CompletableFuture<ResourcePack> created = new CompletableFuture<>();
+        future = this.cache.asMap().putIfAbsent(key, created);
+        if (future != null) {
+            return future;
+        }
+        try {
+            this.executor.execute(() -> {
+                try {
+                    created.complete(ResourcePacks.fromUri(URI.create(key)));
+                } catch (Exception ex) {
+                    this.cache.asMap().remove(key, created);
+                    created.completeExceptionally(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            this.cache.asMap().remove(key, created);
+            created.completeExceptionally(ex);
+        }
+        return created;
+    }
+
+    public Optional<ResourcePack> getIfPresent(URI uri) {
+        CompletableFuture<ResourcePack> future = this.cache.getIfPresent(normalize(uri));
+        return future != null && future.isDone() && !future.isCompletedExceptionally()
+                ? Optional.of(future.join())
+                : Optional.empty();
+    }
+
+    /**
+     * @return the normalized URIs of the packs currently cached
+     */
+    public List<String> getRecent() {
+        return ImmutableList.copyOf(this.cache.asMap().keySet());
+    }
+
+    public void invalidate(URI uri) {
+        this.cache.invalidate(normalize(uri));
+    }
+
+    public void invalidateAll() {
+        this.cache.invalidateAll();
+    }
+
+    /**
+     * Normalizes the path and lower-cases the scheme and host, which are
+     * case-insensitive.
+     */
+    static String normalize(URI uri) {
+        String normalized = uri.normalize().toString();
+        int schemeEnd = normalized.indexOf(':');
+        if (schemeEnd < 0) {
+            return normalized;
+        }
+        int hostStart = schemeEnd + 1;
+        int hostEnd = hostStart;
+        if (normalized.startsWith("//", hostStart)) {
+            hostStart += 2;
+            hostEnd = hostStart;
+            while (hostEnd < normalized.length() && "/?#".indexOf(normalized.charAt(hostEnd)) < 0) {
+                if (normalized.charAt(hostEnd) == '@') {
+                    hostStart = hostEnd + 1;
+                }
+                hostEnd++;
+            }
+        }
+        return normalized.substring(0, schemeEnd + 1).toLowerCase(Locale.ROOT)
+                + normalized.substring(schemeEnd + 1, hostStart)
+                + normalized.substring(hostStart, hostEnd).toLowerCase(Locale.ROOT)
+                + normalized.substring(hostEnd);
+    }
+
+    public static final class Builder {
+
+        private long maximumSize = 64;
+        private long ttl = 1;
+        private TimeUnit ttlUnit = TimeUnit.HOURS;
+        private Executor executor;
+
+        private Builder() {}
+
+        public Builder maximumSize(long maximumSize) {
+            checkArgument(maximumSize > 0, "maximumSize must be positive");
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public Builder expireAfter(long ttl, TimeUnit unit) {
+            checkArgument(ttl > 0, "ttl must be positive");
+            this.ttl = ttl;
+            this.ttlUnit = checkNotNull(unit, "unit");
+            return this;
+        }
+
+        public Builder executor(Executor executor) {
+            this.executor = checkNotNull(executor, "executor");
+            return this;
+        }
+
+        public ResourcePackCache build() {
+            return new ResourcePackCache(this);
+        }
+    }
+}
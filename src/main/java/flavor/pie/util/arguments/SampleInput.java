@@ -0,0 +1,25 @@
+package flavor.pie.util.arguments;
+
+import org.spongepowered.api.command.args.CommandElement;
+
+import javax.annotation.Nullable;
+
+/**
+ * Implemented by elements that {@link MoreArguments#warmUp} can exercise
+ * ahead of their first real use.
+ */
+interface SampleInput {
+
+    /**
+     * @return space-separated arguments this element accepts without
+     *         looking at the source, game state or the network, or
+     *         {@code null} if there are none
+     */
+    @Nullable
+    String sampleInput();
+
+    @Nullable
+    static String of(CommandElement element) {
+        return element instanceof SampleInput ? ((SampleInput) element).sampleInput() : null;
+    }
+}
@@ -0,0 +1,163 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.serializer.TextParseException;
+import org.spongepowered.api.text.serializer.TextSerializers;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A size-bounded, concurrent cache of deserialized {@link Text}, keyed by the
+ * raw argument and whether it was read as JSON. One cache may be shared by
+ * any number of text elements.
+ */
+public final class TextCache {
+
+    private final Cache<Key, Text> cache;
+
+    private TextCache(long maximumSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    public static TextCache create(long maximumSize) {
+        checkArgument(maximumSize > 0, "maximumSize must be positive");
+        return new TextCache(maximumSize);
+    }
+
+    /**
+     * Deserializes {@code raw} as JSON if {@code complex}, otherwise as
+     * {@code &} formatting codes. Input with nothing to interpret, meaning
+     * no formatting codes or a JSON number or boolean, skips the serializer
+     * entirely.
+     */
+    static Text deserialize(String raw, boolean complex) throws TextParseException {
+        if (isPlain(raw, complex)) {
+            return Text.of(raw);
+        }
+        return complex ? TextSerializers.JSON.deserialize(raw) : TextSerializers.FORMATTING_CODE.deserialize(raw);
+    }
+
+    Text get(String raw, boolean complex) throws TextParseException {
+        if (isPlain(raw, complex)) {
+            return Text.of(raw);
+        }
+        Key key = new Key(raw, complex);
+        Text text = this.cache.getIfPresent(key);
+        if (text == null) {
+            text = complex ? TextSerializers.JSON.deserialize(raw) : TextSerializers.FORMATTING_CODE.deserialize(raw);
+            this.cache.put(key, text);
+        }
+        return text;
+    }
+
+    private static boolean isPlain(String raw, boolean complex) {
+        if (complex) {
+            // Anything but a scalar must still be rejected as invalid JSON
+            return raw.equals("true") || raw.equals("false") || isJsonNumber(raw);
+        }
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c == '&' || c == '\u00A7') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isJsonNumber(String raw) {
+        int length = raw.length();
+        int i = 0;
+        if (i < length && raw.charAt(i) == '-') {
+            i++;
+        }
+        if (i == length || !isDigit(raw.charAt(i))) {
+            return false;
+        }
+        if (raw.charAt(i) == '0') {
+            i++;
+        } else {
+            i = skipDigits(raw, i);
+        }
+        if (i < length && raw.charAt(i) == '.') {
+            int start = ++i;
+            i = skipDigits(raw, i);
+            if (i == start) {
+                return false;
+            }
+        }
+        if (i < length && (raw.charAt(i) == 'e' || raw.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (raw.charAt(i) == '+' || raw.charAt(i) == '-')) {
+                i++;
+            }
+            int start = i;
+            i = skipDigits(raw, i);
+            if (i == start) {
+                return false;
+            }
+        }
+        return i == length;
+    }
+
+    private static int skipDigits(String raw, int i) {
+        while (i < raw.length() && isDigit(raw.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    public CacheStats stats() {
+        return this.cache.stats();
+    }
+
+    public double getHitRate() {
+        return this.cache.stats().hitRate();
+    }
+
+    public long getEvictionCount() {
+        return this.cache.stats().evictionCount();
+    }
+
+    public long size() {
+        return this.cache.size();
+    }
+
+    public void invalidateAll() {
+        this.cache.invalidateAll();
+    }
+
+    private static final class Key {
+
+        private final String raw;
+        private final boolean complex;
+
+        Key(String raw, boolean complex) {
+            this.raw = raw;
+            this.complex = complex;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return this.complex == other.complex && this.raw.equals(other.raw);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.raw.hashCode() * 31 + (this.complex ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package flavor.pie.util.arguments;
+
+import flavor.pie.util.arguments.MoreArguments.KeyElement;
+import org.spongepowered.api.command.CommandMessageFormatting;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.ArgumentParseException;
+import org.spongepowered.api.command.args.CommandArgs;
+import org.spongepowered.api.command.args.CommandElement;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.serializer.TextParseException;
+
+import javax.annotation.Nullable;
+
+/**
+ * The text elements behind {@link MoreArguments#text}, kept apart so the
+ * text serializers are only loaded by plugins that use them.
+ */
+final class TextElements {
+
+    private TextElements() {} //nope
+
+    static CommandElement text(Text key, boolean complex, boolean allRemaining, boolean raw, @Nullable TextCache cache) {
+        return new TextCommandElement(key, complex, allRemaining, raw, cache);
+    }
+
+    private static class RemainingJoinedStringsCommandElement extends KeyElement {
+
+        private final boolean raw;
+
+        RemainingJoinedStringsCommandElement(Text key, boolean raw) {
+            super(key);
+            this.raw = raw;
+        }
+
+        @Override
+        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+            if (this.raw) {
+                return RemainingInput.take(args, Integer.MAX_VALUE).toString();
+            } else {
+                final StringBuilder ret = new StringBuilder(args.next());
+                while (args.hasNext()) {
+                    ret.append(' ').append(args.next());
+                }
+                return ret.toString();
+            }
+        }
+
+        @Override
+        public Text getUsage(CommandSource src) {
+            return Text.of(CommandMessageFormatting.LT_TEXT, getKey(), CommandMessageFormatting.ELLIPSIS_TEXT, CommandMessageFormatting.GT_TEXT);
+        }
+    }
+
+    private static class TextCommandElement extends KeyElement implements ThreadAffinity, SampleInput {
+
+        private final boolean complex;
+        private final boolean allRemaining;
+        private final RemainingJoinedStringsCommandElement joinedElement;
+        @Nullable private final TextCache cache;
+
+        protected TextCommandElement(Text key, boolean complex, boolean allRemaining, boolean raw, @Nullable TextCache cache) {
+            super(key);
+            this.complex = complex;
+            this.allRemaining = allRemaining;
+            this.cache = cache;
+            joinedElement = allRemaining ? new RemainingJoinedStringsCommandElement(key, raw) : null;
+        }
+
+        @Override
+        public String sampleInput() {
+            return complex ? "{\"text\":\"a\"}" : "&aa";
+        }
+
+        @Nullable
+        @Override
+        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+            String arg = this.allRemaining ? (String) joinedElement.parseValue(source, args) : args.next();
+            try {
+                return this.cache != null && !MoreArguments.isWarmingUp() ? this.cache.get(arg, this.complex) : TextCache.deserialize(arg, this.complex);
+            } catch (TextParseException ex) {
+                if (!this.complex) {
+                    throw ex;
+                }
+                throw ParseFailure.of(args, () -> Text.of("Invalid JSON text: ", ex.getMessage()));
+            }
+        }
+    }
+}
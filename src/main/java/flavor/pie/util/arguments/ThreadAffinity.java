@@ -0,0 +1,28 @@
+package flavor.pie.util.arguments;
+
+import org.spongepowered.api.command.args.CommandElement;
+
+/**
+ * Implemented by elements that can say whether they need the server thread.
+ * Implementing it without overriding {@link #requiresMainThread()} declares
+ * an element safe to parse from any thread; elements whose needs depend on
+ * how they were built, such as those falling back to the source player or
+ * wrapping other elements, override it.
+ */
+interface ThreadAffinity {
+
+    /**
+     * @return whether parsing must happen on the server's main thread
+     */
+    default boolean requiresMainThread() {
+        return false;
+    }
+
+    /**
+     * Elements that do not implement this may touch game state, so they are
+     * assumed to need the main thread.
+     */
+    static boolean requiresMainThread(CommandElement element) {
+        return !(element instanceof ThreadAffinity) || ((ThreadAffinity) element).requiresMainThread();
+    }
+}
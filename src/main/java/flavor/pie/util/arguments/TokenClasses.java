@@ -0,0 +1,65 @@
+package flavor.pie.util.arguments;
+
+/**
+ * Implemented by elements that only ever consume tokens made of certain
+ * character classes, so {@link CompiledArguments} can rule them out for a
+ * token without asking them.
+ */
+interface TokenClasses {
+
+    int DIGIT = 1;
+    int HEX_LETTER = 1 << 1;
+    int LETTER = 1 << 2;
+    int DOT = 1 << 3;
+    int COMMA = 1 << 4;
+    int COLON = 1 << 5;
+    int DASH = 1 << 6;
+    int PLUS = 1 << 7;
+    int SLASH = 1 << 8;
+    int BRACKET = 1 << 9;
+    int OTHER = 1 << 10;
+    int ANY = (1 << 11) - 1;
+
+    /**
+     * @return the classes a token this element accepts may contain, or
+     *         {@link #ANY} if it may succeed without consuming one
+     */
+    int tokenClasses();
+
+    static int of(String token) {
+        int classes = 0;
+        for (int i = 0; i < token.length(); i++) {
+            classes |= of(token.charAt(i));
+        }
+        return classes;
+    }
+
+    static int of(char c) {
+        if (c >= '0' && c <= '9') {
+            return DIGIT;
+        } else if (c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F') {
+            return HEX_LETTER;
+        } else if (c >= 'g' && c <= 'z' || c >= 'G' && c <= 'Z') {
+            return LETTER;
+        }
+        switch (c) {
+            case '.':
+                return DOT;
+            case ',':
+                return COMMA;
+            case ':':
+                return COLON;
+            case '-':
+                return DASH;
+            case '+':
+                return PLUS;
+            case '/':
+                return SLASH;
+            case '[':
+            case ']':
+                return BRACKET;
+            default:
+                return Character.isDigit(c) ? DIGIT : Character.isLetter(c) ? LETTER : OTHER;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.ArgumentParseException;
+import org.spongepowered.api.command.args.CommandArgs;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.args.CommandElement;
+import org.spongepowered.api.resourcepack.ResourcePack;
+import org.spongepowered.api.resourcepack.ResourcePacks;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.util.GuavaCollectors;
+
+import javax.annotation.Nullable;
+import java.io.FileNotFoundException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The URL, URI and resource pack elements behind {@link MoreArguments}, kept
+ * apart so {@code java.net} URL handling and {@link ResourcePacks} are only
+ * loaded by plugins that use them.
+ */
+final class UriElements {
+
+    private UriElements() {} //nope
+
+    static CommandElement uri(Text key, boolean returnURI, UriRules rules) {
+        return new URIElement(key, returnURI, rules);
+    }
+
+    static CommandElement resourcePack(Text key) {
+        return new ResourcePackElement(key);
+    }
+
+    static CommandElement resourcePackAsync(Text key, ResourcePackCache cache) {
+        return new AsyncResourcePackElement(key, cache);
+    }
+
+    private static class URIElement extends CommandElement implements ThreadAffinity, SampleInput {
+
+        private static final int RECENT_HOSTS = 32;
+        private static final int RECENT_SOURCES = 256;
+        private static final Supplier<Text> INVALID_URL = ParseFailure.message("Invalid URL!");
+        private static final Supplier<Text> URL_NOT_ALLOWED = ParseFailure.message("This URL is not allowed!");
+
+        private final boolean returnURI;
+        private final UriRules rules;
+        // Hosts are only ever suggested back to the source that typed them
+        private final Cache<String, Cache<String, Boolean>> recentHosts = CacheBuilder.newBuilder()
+                .maximumSize(RECENT_SOURCES)
+                .expireAfterAccess(30, TimeUnit.MINUTES)
+                .build();
+
+        protected URIElement(@Nullable Text key, boolean returnURI, UriRules rules) {
+            super(key);
+            this.returnURI = returnURI;
+            this.rules = rules;
+        }
+
+        @Override
+        public String sampleInput() {
+            return "https://example.com/";
+        }
+
+        @Nullable
+        @Override
+        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+            String str = args.next();
+            UriRules.Parts parts = UriRules.scan(str);
+            if (parts == null) {
+                throw new ParseFailure(INVALID_URL, str, 0);
+            }
+            if (!rules.allows(parts)) {
+                throw new ParseFailure(URL_NOT_ALLOWED, str, 0);
+            }
+            // Only the requested type is built, each parsing the checked string once
+            Object value;
+            if (returnURI) {
+                value = UriRules.toUri(str);
+                if (value == null) {
+                    throw new ParseFailure(INVALID_URL, str, 0);
+                }
+            } else {
+                try {
+                    value = new URL(str);
+                } catch (MalformedURLException ex) {
+                    throw new ArgumentParseException(Text.of("Invalid URL!"), ex, str, 0);
+                }
+            }
+            if (parts.host != null && parts.plainHost && !MoreArguments.isWarmingUp()) {
+                recentHosts.asMap()
+                        .computeIfAbsent(source.getIdentifier(), id -> CacheBuilder.newBuilder().maximumSize(RECENT_HOSTS).build())
+                        .put(parts.host, Boolean.TRUE);
+            }
+            return value;
+        }
+
+        @Override
+        public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
+            String prefix = args.nextIfPresent().orElse("");
+            int separator = prefix.indexOf("://");
+            ImmutableList.Builder<String> builder = ImmutableList.builder();
+            if (separator < 0) {
+                for (String scheme : rules.getSchemes()) {
+                    if ((scheme + "://").startsWith(prefix)) {
+                        builder.add(scheme + "://");
+                    }
+                }
+            } else if (prefix.indexOf('/', separator + 3) < 0) {
+                Cache<String, Boolean> hosts = recentHosts.getIfPresent(src.getIdentifier());
+                if (hosts == null) {
+                    return ImmutableList.of();
+                }
+                String start = prefix.substring(0, separator + 3);
+                for (String host : hosts.asMap().keySet()) {
+                    if ((start + host).startsWith(prefix)) {
+                        builder.add(start + host);
+                    }
+                }
+            }
+            return builder.build();
+        }
+    }
+
+    private static class ResourcePackElement extends URIElement {
+        protected ResourcePackElement(@Nullable Text key) {
+            super(key, true, UriRules.urls());
+        }
+        @Override
+        public boolean requiresMainThread() {
+            return true;
+        }
+        @Nullable
+        @Override
+        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+            URI uri = (URI) super.parseValue(source, args);
+            ResourcePack pack;
+            try {
+                pack = ResourcePacks.fromUri(uri);
+            } catch (FileNotFoundException ex) {
+                throw new ArgumentParseException(Text.of("No resource pack located at this URL!"), ex, uri.toString(), 0);
+            }
+            return pack;
+        }
+    }
+
+    private static class AsyncResourcePackElement extends URIElement {
+
+        private final ResourcePackCache cache;
+
+        protected AsyncResourcePackElement(@Nullable Text key, ResourcePackCache cache) {
+            super(key, true, UriRules.urls());
+            this.cache = cache;
+        }
+
+        @Nullable
+        @Override
+        public String sampleInput() {
+            // Parsing fetches the pack
+            return null;
+        }
+
+        @Nullable
+        @Override
+        protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+            return cache.get((URI) super.parseValue(source, args));
+        }
+
+        @Override
+        public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
+            String prefix = args.nextIfPresent().orElse("");
+            return cache.getRecent().stream().filter(uri -> uri.startsWith(prefix)).collect(GuavaCollectors.toImmutableList());
+        }
+    }
+}
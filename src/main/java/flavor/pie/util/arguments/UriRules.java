@@ -0,0 +1,313 @@
+package flavor.pie.util.arguments;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import javax.annotation.Nullable;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Which URIs {@link MoreArguments#uri(org.spongepowered.api.text.Text, UriRules)}
+ * and {@link MoreArguments#url(org.spongepowered.api.text.Text, UriRules)}
+ * accept. Host lists match the host itself and any subdomain of it.
+ */
+public final class UriRules {
+
+    private static final UriRules ANY = builder().build();
+    private static final UriRules URLS = builder().schemes("http", "https", "ftp", "file", "jar").build();
+
+    private final Set<String> schemes;
+    private final List<String> allowedHosts;
+    private final List<String> deniedHosts;
+
+    private UriRules(Builder builder) {
+        this.schemes = builder.schemes.build();
+        this.allowedHosts = builder.allowedHosts.build();
+        this.deniedHosts = builder.deniedHosts.build();
+    }
+
+    /**
+     * @return rules accepting any syntactically valid absolute URI
+     */
+    public static UriRules any() {
+        return ANY;
+    }
+
+    /**
+     * @return rules accepting the schemes {@link java.net.URL} has built-in
+     *         handlers for, which is what the elements accept by default
+     */
+    public static UriRules urls() {
+        return URLS;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Checks the RFC 3986 grammar of an absolute URI in one pass, so that
+     * malformed input is rejected without an exception, and only then builds
+     * the {@link URI}, which parses the string once more.
+     *
+     * @return the URI, or {@code null} if the input is not a valid absolute URI
+     */
+    @Nullable
+    public static URI parse(String s) {
+        return scan(s) == null ? null : toUri(s);
+    }
+
+    /**
+     * @return the URI for input that {@link #scan} accepted, or {@code null}
+     *         in the few corners where {@link URI} is stricter than RFC 3986
+     */
+    @Nullable
+    static URI toUri(String s) {
+        try {
+            return new URI(s);
+        } catch (URISyntaxException ex) {
+            return null;
+        }
+    }
+
+    public boolean allows(URI uri) {
+        String host = uri.getHost();
+        // URI has no host for an authority it can't make sense of, like one
+        // with an underscore in the host
+        return allows(uri.getScheme().toLowerCase(Locale.ROOT), host == null ? null : host.toLowerCase(Locale.ROOT),
+                host != null || uri.getRawAuthority() == null);
+    }
+
+    boolean allows(Parts parts) {
+        return allows(parts.scheme, parts.host, parts.plainHost);
+    }
+
+    private boolean allows(String scheme, @Nullable String host, boolean plainHost) {
+        if (!this.schemes.isEmpty() && !this.schemes.contains(scheme)) {
+            return false;
+        }
+        if (this.allowedHosts.isEmpty() && this.deniedHosts.isEmpty()) {
+            return true;
+        }
+        if (!plainHost) {
+            // Can't be checked against the lists
+            return false;
+        } else if (host == null) {
+            return this.allowedHosts.isEmpty();
+        }
+        return (this.allowedHosts.isEmpty() || matches(this.allowedHosts, host)) && !matches(this.deniedHosts, host);
+    }
+
+    public Set<String> getSchemes() {
+        return this.schemes;
+    }
+
+    private static boolean matches(List<String> hosts, String host) {
+        for (String candidate : hosts) {
+            if (host.equals(candidate)
+                    || host.length() > candidate.length() && host.endsWith(candidate) && host.charAt(host.length() - candidate.length() - 1) == '.') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the scheme and host of {@code s}, or {@code null} if it is not
+     *         a valid absolute URI
+     */
+    @Nullable
+    static Parts scan(String s) {
+        int length = s.length();
+        int i = 0;
+        // scheme
+        if (length == 0 || !isAlpha(s.charAt(0))) {
+            return null;
+        }
+        while (i < length && (isAlpha(s.charAt(i)) || isDigit(s.charAt(i)) || s.charAt(i) == '+' || s.charAt(i) == '-' || s.charAt(i) == '.')) {
+            i++;
+        }
+        if (i == length || s.charAt(i) != ':') {
+            return null;
+        }
+        int schemeEnd = i;
+        i++;
+        int hostStart = -1;
+        int hostEnd = -1;
+        boolean plainHost = true;
+        // authority
+        if (s.startsWith("//", i)) {
+            i += 2;
+            int authorityEnd = i;
+            while (authorityEnd < length && "/?#".indexOf(s.charAt(authorityEnd)) < 0) {
+                authorityEnd++;
+            }
+            hostStart = i;
+            for (int j = i; j < authorityEnd; j++) {
+                if (s.charAt(j) == '@') {
+                    if (!isValidComponent(s, i, j, ":")) {
+                        return null;
+                    }
+                    hostStart = j + 1;
+                    break;
+                }
+            }
+            if (hostStart < authorityEnd && s.charAt(hostStart) == '[') {
+                hostEnd = s.indexOf(']', hostStart);
+                if (hostEnd < 0 || hostEnd >= authorityEnd || IpAddresses.parseV6(s, hostStart + 1, hostEnd) == null) {
+                    return null;
+                }
+                hostEnd++;
+            } else {
+                hostEnd = hostStart;
+                while (hostEnd < authorityEnd && s.charAt(hostEnd) != ':') {
+                    hostEnd++;
+                }
+                if (!isValidComponent(s, hostStart, hostEnd, "")) {
+                    return null;
+                }
+                plainHost = isPlainHost(s, hostStart, hostEnd);
+            }
+            if (hostEnd < authorityEnd) {
+                if (s.charAt(hostEnd) != ':') {
+                    return null;
+                }
+                for (int j = hostEnd + 1; j < authorityEnd; j++) {
+                    if (!isDigit(s.charAt(j))) {
+                        return null;
+                    }
+                }
+            }
+            if (hostEnd == hostStart && authorityEnd > i) {
+                // Only userinfo or a port, which URI can't find a host in
+                plainHost = false;
+            }
+            i = authorityEnd;
+        }
+        // path, query and fragment
+        int fragment = s.indexOf('#', i);
+        int end = fragment < 0 ? length : fragment;
+        if (!isValidComponent(s, i, end, ":@/?")) {
+            return null;
+        }
+        if (fragment >= 0 && !isValidComponent(s, fragment + 1, length, ":@/?")) {
+            return null;
+        }
+        String host = hostStart < hostEnd ? s.substring(hostStart, hostEnd).toLowerCase(Locale.ROOT) : null;
+        return new Parts(s.substring(0, schemeEnd).toLowerCase(Locale.ROOT), host, plainHost);
+    }
+
+    /**
+     * @return whether the host is a name or address that {@link URI} would
+     *         parse as one, rather than some other registry-based authority
+     */
+    private static boolean isPlainHost(String s, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (!(isAlpha(c) || isDigit(c) || c == '-' || c == '.')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isValidComponent(String s, int start, int end, String extra) {
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c == '%') {
+                if (i + 2 >= end || hexValue(s.charAt(i + 1)) < 0 || hexValue(s.charAt(i + 2)) < 0) {
+                    return false;
+                }
+                i += 2;
+            } else if (!(isAlpha(c) || isDigit(c) || "-._~!$&'()*+,;=".indexOf(c) >= 0 || extra.indexOf(c) >= 0 || isOther(c))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Like {@link URI}, accepts characters outside ASCII that are neither
+     * controls nor spaces, such as {@code \u00FC} in a path.
+     */
+    private static boolean isOther(char c) {
+        return c > 0x7F && !Character.isISOControl(c) && !Character.isSpaceChar(c);
+    }
+
+    private static boolean isAlpha(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int hexValue(char c) {
+        if (isDigit(c)) {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F') {
+            return (c | 0x20) - 'a' + 10;
+        }
+        return -1;
+    }
+
+    static final class Parts {
+
+        final String scheme;
+        @Nullable final String host;
+        final boolean plainHost;
+
+        Parts(String scheme, @Nullable String host, boolean plainHost) {
+            this.scheme = scheme;
+            this.host = host;
+            this.plainHost = plainHost;
+        }
+    }
+
+    public static final class Builder {
+
+        private final ImmutableSet.Builder<String> schemes = ImmutableSet.builder();
+        private final ImmutableList.Builder<String> allowedHosts = ImmutableList.builder();
+        private final ImmutableList.Builder<String> deniedHosts = ImmutableList.builder();
+
+        private Builder() {}
+
+        /**
+         * Restricts the accepted schemes. With none given, any scheme is accepted.
+         */
+        public Builder schemes(String... schemes) {
+            for (String scheme : schemes) {
+                this.schemes.add(scheme.toLowerCase(Locale.ROOT));
+            }
+            return this;
+        }
+
+        /**
+         * Only accepts these hosts and their subdomains.
+         */
+        public Builder allowHosts(String... hosts) {
+            for (String host : hosts) {
+                this.allowedHosts.add(host.toLowerCase(Locale.ROOT));
+            }
+            return this;
+        }
+
+        /**
+         * Rejects these hosts and their subdomains, even if they are allowed.
+         */
+        public Builder denyHosts(String... hosts) {
+            for (String host : hosts) {
+                this.deniedHosts.add(host.toLowerCase(Locale.ROOT));
+            }
+            return this;
+        }
+
+        public UriRules build() {
+            return new UriRules(this);
+        }
+    }
+}
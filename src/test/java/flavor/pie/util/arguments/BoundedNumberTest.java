@@ -0,0 +1,152 @@
+package flavor.pie.util.arguments;
+
+import flavor.pie.util.arguments.MoreArguments.BoundedNumberElement;
+import flavor.pie.util.arguments.MoreArguments.BoundedNumberElement.Failure;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BoundedNumberTest {
+
+    private static final String SUFFIXES = "kmbt";
+
+    private static String digits(Random random, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            // Plenty of zeros, for leading and trailing ones
+            builder.append(random.nextInt(3) == 0 ? '0' : (char) ('0' + random.nextInt(10)));
+        }
+        return builder.toString();
+    }
+
+    private static NumberBounds randomBounds(Random random) {
+        NumberBounds.Builder builder = NumberBounds.builder().maxDigits(40).maxScale(20).suffixes(random.nextBoolean());
+        switch (random.nextInt(3)) {
+            case 0:
+                break;
+            case 1: {
+                long a = random.nextLong() >> random.nextInt(64);
+                long b = random.nextLong() >> random.nextInt(64);
+                builder.range(Math.min(a, b), Math.max(a, b));
+                break;
+            }
+            default: {
+                BigDecimal a = new BigDecimal(new BigInteger(80, random), random.nextInt(10)).negate();
+                BigDecimal b = new BigDecimal(new BigInteger(80, random), random.nextInt(10));
+                builder.min(random.nextBoolean() ? a : null).max(random.nextBoolean() ? b : null);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * What {@link BoundedNumberElement#parse} should return, worked out with
+     * {@link BigDecimal} from the number and the suffix alone.
+     */
+    private static Object expected(NumberBounds bounds, boolean decimal, String number, int exponent) {
+        BigDecimal value;
+        try {
+            value = new BigDecimal(number).movePointRight(exponent);
+        } catch (NumberFormatException ex) {
+            return Failure.NOT_A_NUMBER;
+        }
+        if (!decimal && value.signum() != 0 && value.stripTrailingZeros().scale() > 0) {
+            return Failure.NOT_AN_INTEGER;
+        }
+        if (bounds.min != null && value.compareTo(bounds.min) < 0 || bounds.max != null && value.compareTo(bounds.max) > 0) {
+            return Failure.OUT_OF_RANGE;
+        }
+        if (decimal) {
+            return value;
+        }
+        BigInteger integer = value.toBigInteger();
+        return bounds.fitsInLong() ? (Object) integer.longValue() : integer;
+    }
+
+    @Test
+    public void randomInputMatchesBigDecimal() {
+        Random random = new Random(42);
+        for (int round = 0; round < 300; round++) {
+            NumberBounds bounds = randomBounds(random);
+            for (boolean decimal : new boolean[] {false, true}) {
+                BoundedNumberElement element = new BoundedNumberElement(null, bounds, decimal);
+                for (int i = 0; i < 100; i++) {
+                    String number = new String[] {"", "-", "+"}[random.nextInt(3)] + digits(random, random.nextInt(random.nextBoolean() ? 5 : 25));
+                    if (random.nextBoolean()) {
+                        number += "." + digits(random, random.nextInt(12));
+                    }
+                    int exponent = 0;
+                    String input = number;
+                    if (bounds.suffixes && random.nextBoolean()) {
+                        int suffix = random.nextInt(SUFFIXES.length());
+                        exponent = 3 * (suffix + 1);
+                        char c = SUFFIXES.charAt(suffix);
+                        input += random.nextBoolean() ? c : Character.toUpperCase(c);
+                    }
+                    Object expected = expected(bounds, decimal, number, exponent);
+                    Object actual = element.parse(input);
+                    assertEquals(input + " within " + bounds.min + ".." + bounds.max, expected, actual);
+                    assertEquals(expected instanceof Failure ? null : expected, element.tryParse(input));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void malformedInputIsNotANumber() {
+        BoundedNumberElement element = new BoundedNumberElement(null, NumberBounds.builder().suffixes(true).build(), true);
+        for (String s : new String[] {"", "-", "+", ".", "-.", "k", "1kk", "1.2.3", "1e5", "0x10", " 1", "1 ", "--1", "1-", "1,5", "1.k5"}) {
+            assertEquals(s, Failure.NOT_A_NUMBER, element.parse(s));
+        }
+        BoundedNumberElement plain = new BoundedNumberElement(null, NumberBounds.builder().build(), true);
+        assertEquals(Failure.NOT_A_NUMBER, plain.parse("1k"));
+        assertEquals(new BigDecimal("5"), plain.parse("5."));
+        assertEquals(new BigDecimal(".5"), plain.parse(".5"));
+    }
+
+    @Test
+    public void digitAndScaleLimitsAreChecked() {
+        NumberBounds bounds = NumberBounds.builder().maxDigits(5).maxScale(2).suffixes(true).build();
+        BoundedNumberElement decimal = new BoundedNumberElement(null, bounds, true);
+        BoundedNumberElement integer = new BoundedNumberElement(null, bounds, false);
+        assertEquals(new BigDecimal("12345"), decimal.parse("0012345"));
+        assertEquals(Failure.TOO_MANY_DIGITS, decimal.parse("123456"));
+        assertEquals(Failure.TOO_MANY_DIGITS, decimal.parse("123.456"));
+        assertEquals(Failure.TOO_MANY_DIGITS, decimal.parse("100k"));
+        assertEquals(new BigDecimal("12000"), decimal.parse("12k"));
+        assertEquals(Failure.TOO_MANY_DECIMAL_PLACES, decimal.parse("1.234"));
+        assertEquals(new BigDecimal("1.23"), decimal.parse("1.23"));
+        assertEquals(new BigDecimal("1234"), decimal.parse("1.234k"));
+        // Integers ignore the scale limit, but not the digit limit
+        assertEquals(1L, integer.parse("1.0000"));
+        assertEquals(Failure.NOT_AN_INTEGER, integer.parse("1.5"));
+        assertEquals(1500L, integer.parse("1.5k"));
+        assertTrue(bounds.fitsInLong());
+    }
+
+    @Test
+    public void integersBecomeLongsOnlyWhenTheyFit() {
+        NumberBounds unbounded = NumberBounds.builder().maxDigits(30).build();
+        assertFalse(unbounded.fitsInLong());
+        BoundedNumberElement big = new BoundedNumberElement(null, unbounded, false);
+        assertEquals(new BigInteger("-123456789012345678901234567890"), big.parse("-123456789012345678901234567890"));
+        assertEquals(BigInteger.ONE, big.parse("1"));
+        NumberBounds longs = NumberBounds.builder().range(Long.MIN_VALUE, Long.MAX_VALUE).maxDigits(30).build();
+        BoundedNumberElement element = new BoundedNumberElement(null, longs, false);
+        assertEquals(Long.MAX_VALUE, element.parse("9223372036854775807"));
+        assertEquals(Long.MIN_VALUE, element.parse("-9223372036854775808"));
+        assertEquals(Failure.OUT_OF_RANGE, element.parse("9223372036854775808"));
+        NumberBounds fractional = NumberBounds.builder().min(new BigDecimal("-2.5")).max(new BigDecimal("2.5")).build();
+        BoundedNumberElement rounded = new BoundedNumberElement(null, fractional, false);
+        assertEquals(2L, rounded.parse("2"));
+        assertEquals(Failure.OUT_OF_RANGE, rounded.parse("3"));
+        assertEquals(-2L, rounded.parse("-2.0"));
+        assertEquals(Failure.OUT_OF_RANGE, rounded.parse("-3"));
+    }
+}
@@ -0,0 +1,200 @@
+package flavor.pie.util.arguments;
+
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.text.ParsePosition;
+import java.time.Clock;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DateTimeParserTest {
+
+    // Late in the evening in UTC, so zones east of it are already a day ahead
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2017-01-31T23:30:00Z"), ZoneOffset.UTC);
+
+    private static DateTimeParser.Result parse(String s) {
+        ParsePosition pos = new ParsePosition(0);
+        DateTimeParser.Result result = DateTimeParser.parse(s, pos, CLOCK);
+        if (result != null) {
+            assertEquals(s, -1, pos.getErrorIndex());
+            assertEquals(s, s.length(), pos.getIndex());
+        }
+        return result;
+    }
+
+    @Nullable
+    private static LocalDate jdkDate(String s) {
+        try {
+            return LocalDate.parse(s);
+        } catch (DateTimeException ex) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static LocalTime jdkTime(String s) {
+        try {
+            return LocalTime.parse(s);
+        } catch (DateTimeException ex) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static ZoneOffset jdkOffset(String s) {
+        try {
+            return ZoneOffset.of(s);
+        } catch (DateTimeException ex) {
+            return null;
+        }
+    }
+
+    private static String pad(int value, int width) {
+        String s = Integer.toString(value);
+        while (s.length() < width) {
+            s = "0" + s;
+        }
+        return s;
+    }
+
+    @Test
+    public void localDateTimesMatchTheJdk() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            LocalDateTime expected = LocalDateTime.of(LocalDate.ofEpochDay(random.nextInt((int) LocalDate.of(9999, 12, 31).toEpochDay())),
+                    LocalTime.ofNanoOfDay((random.nextLong() >>> 1) % LocalTime.MAX.toNanoOfDay()));
+            switch (random.nextInt(3)) {
+                case 0:
+                    expected = expected.withNano(0);
+                    break;
+                case 1:
+                    expected = expected.withNano(0).withSecond(0);
+                    break;
+                default:
+            }
+            // Prints the shortest of HH:mm, HH:mm:ss and 3, 6 or 9 fraction digits
+            String s = DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(expected);
+            DateTimeParser.Result result = parse(s);
+            assertEquals(s, expected, LocalDateTime.of(result.date, result.time));
+            assertNull(s, result.zone);
+        }
+    }
+
+    @Test
+    public void datesAreValidatedLikeTheJdk() {
+        Random random = new Random(43);
+        for (int i = 0; i < 5000; i++) {
+            String s = pad(random.nextInt(10000), 4) + "-" + pad(random.nextInt(14), 2) + "-" + pad(random.nextInt(33), 2);
+            DateTimeParser.Result result = parse(s);
+            assertEquals(s, jdkDate(s), result == null ? null : result.date);
+        }
+        assertEquals(LocalDate.of(2016, 2, 29), parse("2016-02-29").date);
+        assertNull(parse("2100-02-29"));
+        assertEquals(LocalDate.of(2000, 2, 29), parse("2000-02-29").date);
+    }
+
+    @Test
+    public void timesAreValidatedLikeTheJdk() {
+        Random random = new Random(44);
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder s = new StringBuilder(pad(random.nextInt(26), 2)).append(':').append(pad(random.nextInt(62), 2));
+            if (random.nextBoolean()) {
+                s.append(':').append(pad(random.nextInt(62), 2));
+                if (random.nextBoolean()) {
+                    s.append('.').append(pad(random.nextInt(1000000000), 9), 0, 1 + random.nextInt(9));
+                }
+            }
+            DateTimeParser.Result result = parse(s.toString());
+            assertEquals(s.toString(), jdkTime(s.toString()), result == null ? null : result.time);
+        }
+    }
+
+    @Test
+    public void offsetsMatchTheJdk() {
+        Random random = new Random(45);
+        for (int i = 0; i < 2000; i++) {
+            String offset = (random.nextBoolean() ? "+" : "-") + pad(random.nextInt(20), 2);
+            switch (random.nextInt(3)) {
+                case 0:
+                    offset += ":" + pad(random.nextInt(61), 2);
+                    break;
+                case 1:
+                    offset += pad(random.nextInt(61), 2);
+                    break;
+                default:
+            }
+            DateTimeParser.Result result = parse("2017-01-31T08:00" + offset);
+            assertEquals(offset, jdkOffset(offset), result == null ? null : result.zone);
+        }
+        assertEquals(ZoneOffset.UTC, parse("2017-01-31T08:00Z").zone);
+    }
+
+    @Test
+    public void zonedDateTimesMatchTheJdk() {
+        String[] inputs = {"2017-01-31T08:00:00+01:00", "2017-07-01T08:00Z", "2017-03-26T02:30[Europe/Paris]",
+                "2017-10-29T02:30:15.5[Europe/Paris]", "2017-01-31T08:00[America/New_York]", "2017-01-31T08:00-05:00"};
+        for (String s : inputs) {
+            int bracket = s.indexOf('[');
+            // ZonedDateTime.parse wants an offset before a region, which these leave out
+            ZonedDateTime expected = bracket < 0 ? ZonedDateTime.parse(s)
+                    : LocalDateTime.parse(s.substring(0, bracket)).atZone(ZoneId.of(s.substring(bracket + 1, s.length() - 1)));
+            ZonedDateTime actual = parse(s).toZonedDateTime(ZoneOffset.UTC);
+            assertEquals(s, expected.toInstant(), actual.toInstant());
+            assertEquals(s, expected.getZone(), actual.getZone());
+            assertEquals(s, expected.withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime(), parse(s).toLocalDateTime(ZoneOffset.UTC));
+        }
+        assertNull(parse("2017-01-31T08:00[Not/AZone]"));
+        assertNull(parse("2017-01-31T08:00[Europe/Paris"));
+    }
+
+    @Test
+    public void keywordsFollowTheClock() {
+        assertEquals(LocalDateTime.now(CLOCK), LocalDateTime.of(parse("now").date, parse("now").time));
+        DateTimeParser.Result later = parse("NOW+1h30m-2d");
+        assertEquals(LocalDateTime.now(CLOCK).plusHours(1).plusMinutes(30).minusDays(2), LocalDateTime.of(later.date, later.time));
+        assertNull(parse("now+1y"));
+        assertNull(parse("now+h"));
+        assertNull(parse("nowhere"));
+        assertEquals(LocalDate.of(2017, 1, 31), parse("today").date);
+        assertEquals(LocalDate.of(2017, 2, 1), parse("Tomorrow").date);
+        assertEquals(LocalDate.of(2017, 1, 30), parse("yesterday").date);
+        assertTrue(parse("today").acceptsTime());
+        assertFalse(parse("08:00").acceptsTime());
+        assertNull(parse("todays"));
+    }
+
+    @Test
+    public void bareTimesTakeTodayInTheirZone() {
+        assertEquals(LocalDate.of(2017, 1, 31), parse("08:00").date);
+        assertEquals(LocalDate.of(2017, 2, 1), parse("08:00+01:00").date);
+        assertEquals(LocalDate.of(2017, 2, 1), parse("08:00[Asia/Tokyo]").date);
+        assertEquals(ZoneId.of("Asia/Tokyo"), parse("08:00[Asia/Tokyo]").zone);
+    }
+
+    @Test
+    public void errorIndexPointsAtTheProblem() {
+        ParsePosition pos = new ParsePosition(0);
+        assertNull(DateTimeParser.parse("2017-02-30T08:00", pos, CLOCK));
+        assertEquals(8, pos.getErrorIndex());
+        pos = new ParsePosition(0);
+        assertNull(DateTimeParser.parse("2017-01-31T08:61", pos, CLOCK));
+        assertEquals(14, pos.getErrorIndex());
+        pos = new ParsePosition(0);
+        assertNull(DateTimeParser.parse("201-01-31", pos, CLOCK));
+        assertEquals(3, pos.getErrorIndex());
+    }
+}
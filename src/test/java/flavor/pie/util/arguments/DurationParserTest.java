@@ -0,0 +1,117 @@
+package flavor.pie.util.arguments;
+
+import org.junit.Test;
+
+import java.text.ParsePosition;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DurationParserTest {
+
+    private static final DurationParser PARSER = DurationParser.defaults();
+
+    // Forms java.time accepts as well, minus its signed components
+    private static final String[] ISO = {
+            "PT0S", "PT1S", "PT90S", "PT1H30M", "PT1H30M15S", "P1D", "P1DT2H", "P2DT3H4M5S", "PT0.5S", "PT1.000000001S",
+            "PT0.123456789S", "-PT5M", "+PT5M", "-P1DT1S", "pt1h", "P1dt2h", "PT1,5S", "P10000D",
+    };
+
+    private static final String[] INVALID = {
+            "", "P", "PT", "P1DT", "1", "1x", "1.s", ".s", "1..5s", "1d2", "s", "1 s", "--1s", "1s-", "1.0000000001s",
+            "PT1H1", "9223372036855s", "99999999999999999999ms", "106752d",
+    };
+
+    @Test
+    public void isoFormsMatchTheJdk() {
+        for (String s : ISO) {
+            assertEquals(s, Duration.parse(s), PARSER.parse(s));
+        }
+    }
+
+    @Test
+    public void compactFormsMatchTheJdk() {
+        Random random = new Random(42);
+        String[] units = {"d", "h", "m", "s"};
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder compact = new StringBuilder();
+            StringBuilder iso = new StringBuilder("P");
+            int[] amounts = new int[4];
+            for (int unit = 0; unit < 4; unit++) {
+                amounts[unit] = random.nextInt(3) == 0 ? -1 : random.nextInt(random.nextBoolean() ? 100 : 100000);
+            }
+            if (amounts[0] >= 0) {
+                compact.append(amounts[0]).append('d');
+                iso.append(amounts[0]).append('D');
+            }
+            iso.append('T');
+            for (int unit = 1; unit < 4; unit++) {
+                if (amounts[unit] < 0) {
+                    continue;
+                }
+                String amount = Integer.toString(amounts[unit]);
+                if (unit == 3 && random.nextBoolean()) {
+                    // Only seconds take fractions in java.time
+                    amount += "." + String.format("%09d", random.nextInt(1000000000)).substring(0, 1 + random.nextInt(9));
+                }
+                compact.append(amount).append(units[unit].toUpperCase());
+                iso.append(amount).append(units[unit].toUpperCase());
+            }
+            if (compact.length() == 0) {
+                continue;
+            }
+            String isoString = iso.charAt(iso.length() - 1) == 'T' ? iso.substring(0, iso.length() - 1) : iso.toString();
+            Duration expected = Duration.parse(isoString);
+            assertEquals(compact.toString(), expected, PARSER.parse(compact.toString()));
+            assertEquals(isoString, expected, PARSER.parse(isoString));
+            assertEquals("-" + compact, expected.negated(), PARSER.parse("-" + compact));
+        }
+    }
+
+    @Test
+    public void aliasesAndFractionsApplyToEveryUnit() {
+        assertEquals(Duration.ofMinutes(90), PARSER.parse("1.5h"));
+        assertEquals(Duration.ofMinutes(90), PARSER.parse("1hour30mins"));
+        assertEquals(Duration.ofDays(15).plusHours(12), PARSER.parse("2weeks1.5D"));
+        assertEquals(Duration.ofMillis(1500), PARSER.parse("1s500ms"));
+        assertEquals(Duration.ofNanos(1), PARSER.parse("0.000001ms"));
+        assertEquals(Duration.ofNanos(333333333), PARSER.parse("0.333333333s"));
+        // Unlike java.time, the whole part may be left out
+        assertEquals(Duration.ofMillis(500), PARSER.parse(".5s"));
+    }
+
+    @Test
+    public void invalidInputIsRejected() {
+        for (String s : INVALID) {
+            assertNull(s, PARSER.parse(s));
+        }
+    }
+
+    @Test
+    public void errorIndexPointsAtTheProblem() {
+        ParsePosition pos = new ParsePosition(0);
+        PARSER.parseNanos("1h30x", pos);
+        assertEquals(4, pos.getErrorIndex());
+        pos = new ParsePosition(2);
+        assertEquals(TimeUnit.MINUTES.toNanos(5), PARSER.parseNanos("in5m", pos));
+        assertEquals(-1, pos.getErrorIndex());
+        assertEquals(4, pos.getIndex());
+    }
+
+    @Test
+    public void builderLimitsAreEnforced() {
+        DurationParser parser = DurationParser.builder()
+                .maximum(Duration.ofHours(1))
+                .allowNegative(false)
+                .alias("std", 1, TimeUnit.HOURS)
+                .build();
+        assertEquals(Duration.ofHours(1), parser.parse("1STD"));
+        assertEquals(Duration.ofHours(1), parser.parse("59m60s"));
+        assertNull(parser.parse("59m61s"));
+        assertNull(parser.parse("-1m"));
+        assertEquals(Duration.ofHours(1), parser.getMaximum());
+    }
+}
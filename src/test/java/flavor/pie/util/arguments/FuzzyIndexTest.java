@@ -0,0 +1,106 @@
+package flavor.pie.util.arguments;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FuzzyIndexTest {
+
+    private static final String[] WORDS = {"spawn", "Shop", "arena", "NetherPortal", "kit", "diamond_sword"};
+    private static final String[] QUERIES = {"spawn", "SPAWN_3", "spwn", "shop_1", "Arena_12", "netherportl", "kit_", "diamnd", "zzz", ""};
+    // High enough that ties never cut results short, so ids don't matter
+    private static final int LIMIT = 10000;
+
+    private static String key(Random random) {
+        return WORDS[random.nextInt(WORDS.length)] + "_" + random.nextInt(40);
+    }
+
+    private static List<String> sorted(List<String> keys) {
+        List<String> sorted = new ArrayList<>(keys);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private static void assertSameResults(FuzzyIndex expected, FuzzyIndex actual) {
+        for (String query : QUERIES) {
+            assertEquals(query, sorted(expected.closest(query, LIMIT)), sorted(actual.closest(query, LIMIT)));
+            assertEquals(query, sorted(expected.completions(query, LIMIT)), sorted(actual.completions(query, LIMIT)));
+            assertEquals(query, expected.foldedMatch(query), actual.foldedMatch(query));
+        }
+    }
+
+    @Test
+    public void updatesMatchRebuilding() {
+        Random random = new Random(42);
+        Set<String> keys = new LinkedHashSet<>();
+        while (keys.size() < 100) {
+            keys.add(key(random));
+        }
+        FuzzyIndex index = FuzzyIndex.build(keys.toArray(new String[0]));
+        for (int round = 0; round < 200; round++) {
+            List<String> current = new ArrayList<>(keys);
+            Collections.shuffle(current, random);
+            // Removed keys often come back, reusing nothing from their old ids
+            for (int i = random.nextInt(8); i > 0 && !current.isEmpty(); i--) {
+                keys.remove(current.remove(0));
+            }
+            for (int i = random.nextInt(8); i > 0; i--) {
+                keys.add(key(random));
+            }
+            String[] array = keys.toArray(new String[0]);
+            index = index.update(array);
+            assertSameResults(FuzzyIndex.build(array), index);
+        }
+    }
+
+    @Test
+    public void removedKeysAreForgotten() {
+        FuzzyIndex index = FuzzyIndex.build(new String[] {"Spawn", "spawn_arena", "Shop", "Arena", "kit"});
+        FuzzyIndex updated = index.update(new String[] {"spawn_arena", "Shop", "Arena", "kit"});
+        assertEquals(-1, updated.id("Spawn"));
+        assertNull(updated.foldedMatch("spawn"));
+        assertFalse(updated.closest("spawn", LIMIT).contains("Spawn"));
+        assertEquals("Spawn", index.foldedMatch("SPAWN"));
+    }
+
+    @Test
+    public void readdedKeysAreFound() {
+        FuzzyIndex index = FuzzyIndex.build(new String[] {"Spawn", "Shop", "Arena", "kit"})
+                .update(new String[] {"Shop", "Arena", "kit"})
+                .update(new String[] {"Shop", "Arena", "kit", "Spawn"});
+        assertEquals("Spawn", index.foldedMatch("spawn"));
+        assertTrue(index.closest("spwn", LIMIT).contains("Spawn"));
+    }
+
+    @Test
+    public void mostlyRemovedIndexesStartOver() {
+        FuzzyIndex index = FuzzyIndex.build(new String[] {"a1", "a2", "a3", "a4", "a5", "a6", "Spawn", "Shop"})
+                .update(new String[] {"Spawn", "Shop"});
+        assertTrue(index.id("Spawn") < 2);
+        assertTrue(index.id("Shop") < 2);
+    }
+
+    @Test
+    public void unchangedKeysKeepTheIndex() {
+        FuzzyIndex index = FuzzyIndex.build(new String[] {"Spawn", "Shop"});
+        assertSame(index, index.update(new String[] {"Shop", "Spawn"}));
+    }
+
+    @Test
+    public void ambiguousCaseIsNotMatched() {
+        FuzzyIndex index = FuzzyIndex.build(new String[] {"Spawn", "SPAWN", "Shop"});
+        assertNull(index.foldedMatch("spawn"));
+        assertEquals("Shop", index.foldedMatch("SHOP"));
+    }
+}
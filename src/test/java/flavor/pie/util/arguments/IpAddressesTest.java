@@ -0,0 +1,127 @@
+package flavor.pie.util.arguments;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IpAddressesTest {
+
+    private static final String[] VALID = {
+            "0.0.0.0", "127.0.0.1", "255.255.255.255", "10.20.30.40", "1.2.3.4",
+            "::", "::1", "1::", "1::2", "2001:db8::ff00:42:8329", "2001:DB8:0:0:8:800:200C:417A",
+            "fe80::1:2:3:4", "1:2:3:4:5:6:7:8", "1:2:3:4:5:6:7::", "::2:3:4:5:6:7:8", "1::8",
+            "::ffff:10.0.0.1", "::10.0.0.1", "64:ff9b::192.0.2.33", "1:2:3:4:5:6:1.2.3.4", "0:0:0:0:0:ffff:7f00:1",
+            "[::1]", "[2001:db8::1]", "ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff",
+    };
+    private static final String[] INVALID = {
+            "", "1.2.3", "1.2.3.4.5", "256.1.1.1", "1..2.3", "1.2.3.", ".1.2.3", "1.2.3.4 ", "1.2.3.a", "1234.1.1.1",
+            ":", ":::", "1:::2", "1::2::3", ":1::2", "1::2:", "12345::", "1:2:3:4:5:6:7:8:9", "1:2:3:4:5:6:7:8::",
+            "::g", "::1.2.3", "::1.2.3.4:5", "1:2:3:4:5:6:7:1.2.3.4", "[::1", "::1]", "[1.2.3.4", "1.2.3.4:80",
+    };
+
+    private static InetAddress jdk(String literal) throws Exception {
+        // Literals never reach the resolver
+        return InetAddress.getByName(literal);
+    }
+
+    @Test
+    public void literalsMatchTheJdk() throws Exception {
+        for (String literal : VALID) {
+            // Compared as addresses, as the JDK turns IPv4-mapped literals into IPv4 ones
+            assertEquals(literal, jdk(literal), IpAddresses.forLiteral(literal));
+        }
+    }
+
+    @Test
+    public void invalidLiteralsAreRejected() {
+        for (String literal : INVALID) {
+            assertNull(literal, IpAddresses.parse(literal));
+        }
+    }
+
+    @Test
+    public void literalsInsideLongerInputAreParsed() {
+        String s = "from [::1] to 10.0.0.1!";
+        assertEquals(16, IpAddresses.parse(s, 5, 10).length);
+        assertEquals(IpAddresses.forLiteral("10.0.0.1"), IpAddresses.toAddress(IpAddresses.parse(s, 14, 22)));
+        assertNull(IpAddresses.parse(s, 14, 23));
+    }
+
+    @Test
+    public void randomAddressesMatchTheJdk() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            byte[] bytes = new byte[random.nextBoolean() ? 4 : 16];
+            random.nextBytes(bytes);
+            if (bytes.length == 16) {
+                // Zero runs give "::" somewhere in the compressed form
+                int start = random.nextInt(8);
+                int end = start + random.nextInt(8 - start + 1);
+                for (int j = start * 2; j < end * 2; j++) {
+                    bytes[j] = 0;
+                }
+            }
+            String literal = format(bytes);
+            assertEquals(literal, jdk(literal), IpAddresses.forLiteral(literal));
+            assertEquals(literal, InetAddress.getByAddress(bytes), IpAddresses.forLiteral(InetAddress.getByAddress(bytes).getHostAddress()));
+        }
+    }
+
+    // Compresses the longest run of zero groups, in mixed case, unlike getHostAddress
+    private static String format(byte[] bytes) {
+        if (bytes.length == 4) {
+            return (bytes[0] & 0xFF) + "." + (bytes[1] & 0xFF) + "." + (bytes[2] & 0xFF) + "." + (bytes[3] & 0xFF);
+        }
+        int[] groups = new int[8];
+        for (int i = 0; i < 8; i++) {
+            groups[i] = (bytes[2 * i] & 0xFF) << 8 | bytes[2 * i + 1] & 0xFF;
+        }
+        int bestStart = -1;
+        int bestLength = 1;
+        for (int i = 0; i < 8; ) {
+            int j = i;
+            while (j < 8 && groups[j] == 0) {
+                j++;
+            }
+            if (j - i > bestLength) {
+                bestStart = i;
+                bestLength = j - i;
+            }
+            i = Math.max(j, i + 1);
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 8; i++) {
+            if (i == bestStart) {
+                builder.append("::");
+                i += bestLength - 1;
+                continue;
+            }
+            if (builder.length() > 0 && builder.charAt(builder.length() - 1) != ':') {
+                builder.append(':');
+            }
+            String group = Integer.toHexString(groups[i]);
+            builder.append(i % 2 == 0 ? group : group.toUpperCase());
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void hostNamesAreChecked() {
+        assertTrue(IpAddresses.isHostName("example.com"));
+        assertTrue(IpAddresses.isHostName("Example.COM."));
+        assertTrue(IpAddresses.isHostName("a-b.c1"));
+        assertFalse(IpAddresses.isHostName(""));
+        assertFalse(IpAddresses.isHostName("."));
+        assertFalse(IpAddresses.isHostName("a..b"));
+        assertFalse(IpAddresses.isHostName("-a.b"));
+        assertFalse(IpAddresses.isHostName("a-.b"));
+        assertFalse(IpAddresses.isHostName("a_b.c"));
+        assertFalse(IpAddresses.isHostName(new String(new char[64]).replace('\0', 'a') + ".com"));
+    }
+}
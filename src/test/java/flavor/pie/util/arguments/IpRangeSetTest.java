@@ -0,0 +1,163 @@
+package flavor.pie.util.arguments;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IpRangeSetTest {
+
+    private static final int SMALL_BITS = 12;
+
+    private static byte[] bytes(BigInteger value, int length) {
+        byte[] raw = value.toByteArray();
+        byte[] bytes = new byte[length];
+        int copied = Math.min(raw.length, length);
+        System.arraycopy(raw, raw.length - copied, bytes, length - copied, copied);
+        return bytes;
+    }
+
+    private static BigInteger value(byte[] bytes) {
+        return new BigInteger(1, bytes);
+    }
+
+    private static InetAddress address(BigInteger value, int length) throws Exception {
+        return InetAddress.getByAddress(bytes(value, length));
+    }
+
+    // Built in turns from a CIDR block, from bounds and from parsed text
+    private static IpRange randomRange(Random random, BigInteger base, int bits, int length) throws Exception {
+        BigInteger a = base.add(new BigInteger(bits, random));
+        switch (random.nextInt(3)) {
+            case 0:
+                return IpRange.of(address(a, length), length * 8 - random.nextInt(bits + 1));
+            case 1: {
+                BigInteger b = base.add(new BigInteger(bits, random));
+                return IpRange.of(address(a.min(b), length), address(a.max(b), length));
+            }
+            default: {
+                BigInteger b = base.add(new BigInteger(bits, random));
+                String text = address(a.min(b), length).getHostAddress() + "-" + address(a.max(b), length).getHostAddress();
+                IpRange range = IpRange.parse(text);
+                assertEquals(text, IpRange.of(address(a.min(b), length), address(a.max(b), length)), range);
+                return range;
+            }
+        }
+    }
+
+    private static boolean modelContains(List<IpRange> ranges, byte[] address) {
+        for (IpRange range : ranges) {
+            if (range.start.length == address.length
+                    && value(range.start).compareTo(value(address)) <= 0 && value(address).compareTo(value(range.end)) <= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The set checks IPv4-mapped addresses against its IPv4 ranges; single ranges don't
+    private static byte[] unmapped(byte[] address) {
+        if (address.length == 16 && value(address).shiftRight(32).equals(BigInteger.valueOf(0xFFFF))) {
+            return bytes(value(address), 4);
+        }
+        return address;
+    }
+
+    private static void assertContains(List<IpRange> ranges, IpRangeSet set, byte[] address) throws Exception {
+        boolean expected = modelContains(ranges, address);
+        boolean inRange = false;
+        for (IpRange range : ranges) {
+            inRange |= range.contains(address);
+        }
+        assertEquals(expected, inRange);
+        expected = modelContains(ranges, unmapped(address));
+        assertEquals(InetAddress.getByAddress(address) + " in " + ranges, expected, set.contains(address));
+        if (address.length == 4) {
+            assertEquals(expected, set.contains(value(address).intValue()));
+            byte[] mapped = new byte[16];
+            mapped[10] = (byte) 0xFF;
+            mapped[11] = (byte) 0xFF;
+            System.arraycopy(address, 0, mapped, 12, 4);
+            assertEquals(expected, set.contains(mapped));
+        }
+    }
+
+    private static void checkSmallSpace(Random random, BigInteger base, int length) throws Exception {
+        for (int round = 0; round < 30; round++) {
+            List<IpRange> ranges = new ArrayList<>();
+            for (int i = random.nextInt(12); i > 0; i--) {
+                ranges.add(randomRange(random, base, SMALL_BITS, length));
+            }
+            IpRangeSet set = IpRangeSet.of(ranges);
+            assertEquals(ranges.isEmpty(), set.isEmpty());
+            // Every address in the space, and its neighbours on either side
+            for (int i = -1; i <= 1 << SMALL_BITS; i++) {
+                assertContains(ranges, set, bytes(base.add(BigInteger.valueOf(i)), length));
+            }
+        }
+    }
+
+    private static void checkWholeSpace(Random random, int length) throws Exception {
+        BigInteger max = BigInteger.ONE.shiftLeft(length * 8).subtract(BigInteger.ONE);
+        for (int round = 0; round < 200; round++) {
+            List<IpRange> ranges = new ArrayList<>();
+            for (int i = random.nextInt(6); i > 0; i--) {
+                ranges.add(randomRange(random, BigInteger.ZERO, length * 8, length));
+            }
+            IpRangeSet set = IpRangeSet.of(ranges);
+            List<BigInteger> probes = new ArrayList<>();
+            for (IpRange range : ranges) {
+                probes.add(value(range.start).subtract(BigInteger.ONE));
+                probes.add(value(range.start));
+                probes.add(value(range.end));
+                probes.add(value(range.end).add(BigInteger.ONE));
+            }
+            for (int i = 0; i < 50; i++) {
+                probes.add(new BigInteger(length * 8, random));
+            }
+            for (BigInteger probe : probes) {
+                if (probe.signum() >= 0 && probe.compareTo(max) <= 0) {
+                    assertContains(ranges, set, bytes(probe, length));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void smallIpv4SpaceMatchesModel() throws Exception {
+        checkSmallSpace(new Random(1), value(IpAddresses.parse("10.1.0.0")), 4);
+    }
+
+    @Test
+    public void smallIpv6SpaceMatchesModel() throws Exception {
+        checkSmallSpace(new Random(2), value(IpAddresses.parse("2001:db8::")), 16);
+    }
+
+    @Test
+    public void wholeIpv4SpaceMatchesModel() throws Exception {
+        checkWholeSpace(new Random(3), 4);
+    }
+
+    @Test
+    public void wholeIpv6SpaceMatchesModel() throws Exception {
+        checkWholeSpace(new Random(4), 16);
+    }
+
+    @Test
+    public void familiesAreKeptApart() {
+        IpRangeSet set = IpRangeSet.builder().add(IpRange.parse("0.0.0.0/0")).build();
+        assertTrue(set.contains(IpAddresses.parse("1.2.3.4")));
+        assertTrue(set.contains(IpAddresses.parse("::ffff:1.2.3.4")));
+        assertFalse(set.contains(IpAddresses.parse("::1")));
+        assertFalse(set.contains(new byte[5]));
+        assertTrue(IpRangeSet.of().isEmpty());
+        assertFalse(IpRangeSet.of().contains(IpAddresses.parse("::")));
+    }
+}
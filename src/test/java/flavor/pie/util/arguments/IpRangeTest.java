@@ -0,0 +1,67 @@
+package flavor.pie.util.arguments;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.OptionalInt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IpRangeTest {
+
+    private static IpRange parse(String s) {
+        IpRange range = IpRange.parse(s);
+        assertNotNull(s, range);
+        return range;
+    }
+
+    private static InetAddress address(String literal) {
+        return IpAddresses.forLiteral(literal);
+    }
+
+    @Test
+    public void cidrBlocksAreNormalized() {
+        IpRange range = parse("10.1.2.3/8");
+        assertEquals(address("10.0.0.0"), range.getStart());
+        assertEquals(address("10.255.255.255"), range.getEnd());
+        assertEquals(OptionalInt.of(8), range.getPrefixLength());
+        assertEquals("10.0.0.0/8", range.toString());
+        assertEquals(parse("10.0.0.0-10.255.255.255"), range);
+        IpRange v6 = parse("2001:db8::1/32");
+        assertTrue(v6.isIpv6());
+        assertEquals(address("2001:db8::"), v6.getStart());
+        assertEquals(address("2001:db8:ffff:ffff:ffff:ffff:ffff:ffff"), v6.getEnd());
+    }
+
+    @Test
+    public void boundsThatFormABlockHaveAPrefix() {
+        assertEquals(OptionalInt.of(24), parse("10.0.0.0-10.0.0.255").getPrefixLength());
+        assertEquals(OptionalInt.of(0), parse("0.0.0.0-255.255.255.255").getPrefixLength());
+        assertEquals(OptionalInt.of(32), parse("10.0.0.1").getPrefixLength());
+        assertEquals(OptionalInt.empty(), parse("10.0.0.5-10.0.0.9").getPrefixLength());
+        assertEquals(OptionalInt.empty(), parse("10.0.0.1-10.0.1.0").getPrefixLength());
+        assertEquals("10.0.0.5-10.0.0.9", parse("10.0.0.5-10.0.0.9").toString());
+    }
+
+    @Test
+    public void invalidRangesAreRejected() {
+        String[] invalid = {"", "10.0.0.0/", "10.0.0.0/33", "::/129", "10.0.0.0/0008", "10.0.0.0/-1", "10.0.0.0/8a",
+                "10.0.0.9-10.0.0.5", "10.0.0.1-::1", "10.0.0.1-", "-10.0.0.1", "10.0.0.0/8/8", "example.com/8"};
+        for (String s : invalid) {
+            assertNull(s, IpRange.parse(s));
+        }
+    }
+
+    @Test
+    public void containsChecksTheFamily() {
+        IpRange range = parse("0.0.0.0/0");
+        assertTrue(range.contains(address("1.2.3.4")));
+        assertFalse(range.contains(new byte[16]));
+        assertTrue(parse("::/0").contains(new byte[16]));
+        assertFalse(parse("::/0").contains(new byte[4]));
+    }
+}
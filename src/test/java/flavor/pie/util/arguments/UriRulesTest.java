@@ -0,0 +1,81 @@
+package flavor.pie.util.arguments;
+
+import org.junit.Test;
+
+import java.net.URI;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class UriRulesTest {
+
+    private static URI parse(String s) {
+        URI uri = UriRules.parse(s);
+        assertNotNull(s, uri);
+        return uri;
+    }
+
+    @Test
+    public void deniedHostsMatchSubdomains() {
+        UriRules rules = UriRules.builder().denyHosts("evil.com").build();
+        assertFalse(rules.allows(parse("http://evil.com/")));
+        assertFalse(rules.allows(parse("http://www.EVIL.com/")));
+        assertTrue(rules.allows(parse("http://notevil.com/")));
+    }
+
+    @Test
+    public void unparseableAuthorityIsDenied() {
+        // java.net.URI falls back to a registry authority with no host here
+        UriRules rules = UriRules.builder().denyHosts("evil.com").build();
+        assertFalse(rules.allows(parse("http://x_y.evil.com/")));
+        assertFalse(rules.allows(parse("http://x_y.example.com/")));
+        assertTrue(UriRules.any().allows(parse("http://x_y.evil.com/")));
+    }
+
+    @Test
+    public void allowedHostsRejectOpaqueUris() {
+        UriRules rules = UriRules.builder().allowHosts("example.com").build();
+        assertTrue(rules.allows(parse("https://cdn.example.com/pack.zip")));
+        assertFalse(rules.allows(parse("mailto:someone@example.com")));
+    }
+
+    @Test
+    public void urlsOnlyAcceptHandlerSchemes() {
+        assertTrue(UriRules.urls().allows(parse("https://example.com/")));
+        assertTrue(UriRules.urls().allows(parse("FILE:/tmp/pack.zip")));
+        assertFalse(UriRules.urls().allows(parse("javascript:alert(1)")));
+        assertFalse(UriRules.urls().allows(parse("urn:isbn:0451450523")));
+    }
+
+    @Test
+    public void scannedHostsFollowTheSameRules() {
+        UriRules rules = UriRules.builder().denyHosts("evil.com").build();
+        assertFalse(rules.allows(UriRules.scan("http://www.Evil.com/")));
+        assertFalse(rules.allows(UriRules.scan("http://x_y.example.com/")));
+        assertFalse(rules.allows(UriRules.scan("http://user@:80/")));
+        assertTrue(rules.allows(UriRules.scan("http://user@example.com:8080/")));
+        assertTrue(rules.allows(UriRules.scan("file:///tmp/pack.zip")));
+        assertTrue(UriRules.urls().allows(UriRules.scan("https://[::1]/")));
+    }
+
+    @Test
+    public void nonAsciiCharactersAreAccepted() {
+        // As they were when every input went through URL.toURI()
+        assertNotNull(parse("http://example.com/\u00FC"));
+        assertNotNull(parse("http://example.com/?q=\u65E5\u672C#\u00E9"));
+        assertTrue(UriRules.urls().allows(UriRules.scan("http://ex\u00E4mple.com/")));
+        assertFalse(UriRules.builder().allowHosts("example.com").build().allows(UriRules.scan("http://ex\u00E4mple.com/")));
+        assertNull(UriRules.parse("http://example.com/a\u00A0b"));
+        assertNull(UriRules.parse("http://example.com/a\u0085b"));
+    }
+
+    @Test
+    public void invalidInputIsRejected() {
+        assertNull(UriRules.parse("not a uri"));
+        assertNull(UriRules.parse("http://example.com:80a/"));
+        assertNull(UriRules.parse("http://[::g]/"));
+        assertNull(UriRules.parse("/relative/path"));
+    }
+}